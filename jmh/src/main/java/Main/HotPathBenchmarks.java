@@ -0,0 +1,214 @@
+package Main;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import GameObjects.EntityStore;
+import GameObjects.MovementSystem;
+import GameObjects.Projectile;
+import GameObjects.SpaceShip;
+import GameObjects.SpriteCache;
+
+/**
+ * HotPathBenchmarks times the per-frame hot paths of the game under JMH:
+ * moveEnemies() (on one thread and on the fork/join pool),
+ * checkForEnemyHits(), updateGame(), moving projectiles and ships, taking a
+ * FrameSnapshot, and drawing the snapshot into an off-screen image: shape by
+ * shape, shape by shape grouped by color, and from the sprite cache. Each one
+ * is run for every combination of enemy count and live shot count.
+ *
+ * JMH forks a fresh JVM for each benchmark, warms it up before measuring and
+ * keeps the JIT from throwing the work away. Each invocation rebuilds the
+ * Scenario (untimed) and then runs a batch of operations, so enemies and
+ * shots don't drift off the screen. The scenario is also moved once and
+ * captured before the batch, which collision and drawing need.
+ *
+ * Usage: mvn -f jmh/pom.xml package, then java -jar jmh/target/benchmarks.jar
+ * [name] [-p enemies=200,2000,20000] [-p shots=20,200,2000]
+ *
+ * @author Mason Dumaine
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class HotPathBenchmarks
+{
+	// How many operations run between scenario rebuilds. Every hit changes
+	// the scenario, so collision is rebuilt before each call.
+	private static final int MOVE_BATCH = 50, HIT_BATCH = 1, DRAW_BATCH = 5;
+
+	@Param({ "200", "2000", "20000" })
+	public int enemies;
+
+	@Param({ "20", "200", "2000" })
+	public int shots;
+
+	private Scenario s;
+	private GameSimulation game;
+	private DrawBatcher batcher;
+	private SpriteCache sprites;
+
+	@Setup(Level.Trial)
+	public void build()
+	{
+		System.setProperty("java.awt.headless", "true");
+		s = new Scenario(enemies, shots);
+		game = s.game;
+		batcher = new DrawBatcher();
+		sprites = new SpriteCache();
+		sprites.validate(s.pen);
+	}
+
+	@Setup(Level.Invocation)
+	public void rebuild()
+	{
+		game.setPool(null);
+		s.renderer.setBatcher(null);
+		s.renderer.setSprites(null);
+		s.reset();
+		game.moveEnemies();
+		s.frame.capture(game);
+	}
+
+	@TearDown(Level.Trial)
+	public void close()
+	{
+		s.pen.dispose();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVE_BATCH)
+	public void moveEnemies(Blackhole sink)
+	{
+		for (int i = 0; i < MOVE_BATCH; i++)
+		{
+			game.moveEnemies();
+			sink.consume(game.getEnemies().size());
+		}
+	}
+
+	// Waves below the parallel threshold still run on this thread.
+	@Benchmark
+	@OperationsPerInvocation(MOVE_BATCH)
+	public void moveEnemiesParallel(Blackhole sink)
+	{
+		game.setPool(ForkJoinPool.commonPool());
+		for (int i = 0; i < MOVE_BATCH; i++)
+		{
+			game.moveEnemies();
+			sink.consume(game.getEnemies().size());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HIT_BATCH)
+	public void checkForEnemyHits(Blackhole sink)
+	{
+		game.checkForEnemyHits();
+		sink.consume(game.getKillCounter());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVE_BATCH)
+	public void updateGame(Blackhole sink)
+	{
+		for (int i = 0; i < MOVE_BATCH; i++)
+		{
+			game.updateGame();
+			sink.consume(game.getShots().size());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVE_BATCH)
+	public void moveShot(Blackhole sink)
+	{
+		EntityStore<Projectile> shots = game.getShots();
+		for (int i = 0; i < MOVE_BATCH; i++)
+		{
+			for (int j = 0; j < shots.size(); j++)
+			{
+				MovementSystem.moveShot(shots, j);
+			}
+			sink.consume(shots.size());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVE_BATCH)
+	public void moveShips(Blackhole sink)
+	{
+		EntityStore<SpaceShip> enemies = game.getEnemies();
+		for (int i = 0; i < MOVE_BATCH; i++)
+		{
+			MovementSystem.moveShips(enemies, 0, enemies.size());
+			sink.consume(enemies.size());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVE_BATCH)
+	public void capture(Blackhole sink)
+	{
+		for (int i = 0; i < MOVE_BATCH; i++)
+		{
+			s.frame.capture(game);
+			sink.consume(s.frame.shipCount);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DRAW_BATCH)
+	public void drawGameObjects()
+	{
+		draw();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DRAW_BATCH)
+	public void drawBatched()
+	{
+		s.renderer.setBatcher(batcher);
+		draw();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DRAW_BATCH)
+	public void drawSprites()
+	{
+		s.renderer.setSprites(sprites);
+		draw();
+	}
+
+	/**
+	 * Draws the captured ships and shots a batch of times.
+	 */
+	private void draw()
+	{
+		for (int i = 0; i < DRAW_BATCH; i++)
+		{
+			s.renderer.drawShips(s.pen, s.frame);
+			s.renderer.drawShots(s.pen, s.frame);
+		}
+	}
+}
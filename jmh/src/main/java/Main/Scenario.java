@@ -0,0 +1,82 @@
+package Main;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import GameObjects.EntityStore;
+import GameObjects.Projectile;
+
+/**
+ * Scenario is the game HotPathBenchmarks times: a fixed number of enemies and
+ * shots spread over the screen, plus an off-screen image to draw it into.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+class Scenario
+{
+	final GameSimulation game;
+	final GameRenderer renderer;
+	final FrameSnapshot frame;
+	final Graphics2D pen;
+	final int enemyCount, shotCount;
+
+	/**
+	 * Creates the game and starts it, without filling it yet.
+	 * 
+	 * @param enemyCount
+	 *            How many enemies reset() puts in play.
+	 * @param shotCount
+	 *            How many shots reset() puts in play.
+	 */
+	Scenario(int enemyCount, int shotCount)
+	{
+		this.enemyCount = enemyCount;
+		this.shotCount = shotCount;
+
+		// Start the game so that updateGame() moves things.
+		KeyBoard keyboard = new KeyBoard();
+		keyboard.press(InputSource.GO);
+		game = new GameSimulation(keyboard);
+		game.tick();
+		keyboard.release(InputSource.GO);
+
+		renderer = new GameRenderer(game);
+		frame = new FrameSnapshot(enemyCount + shotCount);
+		BufferedImage image = new BufferedImage(game.FRAME_SIZE,
+				game.FRAME_SIZE, BufferedImage.TYPE_INT_RGB);
+		pen = image.createGraphics();
+	}
+
+	/**
+	 * Puts the enemies at random points along their path, and the shots
+	 * between the player and the enemies. The same seed is used every time so
+	 * every batch sees the same layout.
+	 */
+	void reset()
+	{
+		Random random = new Random(42);
+
+		game.clearWave();
+
+		// Anywhere along the path, short of the game over line.
+		for (int k = 0; k < enemyCount; k++)
+		{
+			game.addEnemy(1 + random.nextInt(game.getPath().length - 1), 0);
+		}
+
+		EntityStore<Projectile> shots = game.getShots();
+		for (int k = 0; k < shotCount; k++)
+		{
+			Projectile shot = shots.view(shots.add());
+			shot.reset(1 + random.nextInt(game.FRAME_SIZE - 2),
+					game.FRAME_SIZE / 3
+							+ random.nextInt(game.PLAYER_YAXIS_POS
+									- game.FRAME_SIZE / 3),
+					game.SHOT_SIZE, Color.blue);
+			shot.setYVel(-game.PROJECTILE_SPEED);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package GameObjects;
+
+/**
+ * ColliderStore is the collider component: the square hitbox of each entity,
+ * centered on its position. The hitbox is also the size the entity is drawn
+ * at.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class ColliderStore extends ComponentStore
+{
+	// The width of the square hitbox of each entity.
+	public int[] size;
+
+	@Override
+	void allocate(int capacity)
+	{
+		size = grow(size, capacity);
+	}
+
+	@Override
+	void reset(int slot)
+	{
+		size[slot] = 0;
+	}
+
+	@Override
+	void copy(int from, int to)
+	{
+		size[to] = size[from];
+	}
+}
@@ -0,0 +1,130 @@
+package GameObjects;
+
+/**
+ * CollisionSystem finds the projectiles that hit a set of targets, using the
+ * position and collider components. The targets are filed in a
+ * SpatialHashGrid, rebuilt every time they move, so each shot is only tested
+ * against the targets near it.
+ * 
+ * The whole path of a shot's last step is tested, not just where it ended up,
+ * so a shot moving further than a target's size per tick still hits. The
+ * targets are tested where they are now; they move at most their size per
+ * tick, which the edge of their hitbox already covers.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class CollisionSystem
+{
+	// Broad-phase grid of the targets, by slot.
+	private final SpatialHashGrid grid;
+
+	/**
+	 * Creates an empty system.
+	 * 
+	 * @param cellSize
+	 *            The size of a grid cell, normally the size of a target.
+	 * @param expectedTargets
+	 *            How many targets there usually are at once.
+	 */
+	public CollisionSystem(int cellSize, int expectedTargets)
+	{
+		grid = new SpatialHashGrid(cellSize, expectedTargets);
+	}
+
+	/**
+	 * Forgets every target.
+	 */
+	public void clear()
+	{
+		grid.clear();
+	}
+
+	/**
+	 * Rebuilds the grid, filing every target under the cells its hitbox
+	 * covers.
+	 * 
+	 * @param targets
+	 *            The targets, with position and collider components.
+	 */
+	public void fill(EntityStore<?> targets)
+	{
+		grid.clear();
+		int[] x = targets.position.x, y = targets.position.y;
+		int[] size = targets.collider.size;
+		for (int i = 0; i < targets.size(); i++)
+		{
+			int half = size[i] / 2;
+			grid.insert(i, x[i] - half, y[i] - half, size[i], size[i]);
+		}
+	}
+
+	/**
+	 * Checks each shot against the targets near it. A shot that hits is
+	 * removed, and the target it hit is marked DEAD and taken out of the grid
+	 * so no other shot hits it. The dead targets are left in their store, for
+	 * the caller to remove once it has counted them; the grid is stale after
+	 * that until the next fill().
+	 * 
+	 * @param shots
+	 *            The projectiles, with position, collider and swing
+	 *            components.
+	 * @param targets
+	 *            The targets the grid was filled from.
+	 * @return The number of targets hit.
+	 */
+	public int hitTargets(EntityStore<?> shots, EntityStore<?> targets)
+	{
+		int[] x = shots.position.x, y = shots.position.y;
+		int[] size = shots.collider.size;
+		int[] targetX = targets.position.x, targetY = targets.position.y;
+		int[] targetSize = targets.collider.size;
+		int hits = 0;
+
+		// A removal moves the last shot into slot i, so i is only advanced
+		// when the shot missed.
+		int i = 0;
+		while (i < shots.size())
+		{
+			int hit = grid.findSwept(x[i] - (size[i] / 2),
+					y[i] - (size[i] / 2), size[i], size[i],
+					lastStepX(shots, i), lastStepY(shots, i));
+			if (hit != -1)
+			{
+				hits++;
+				int half = targetSize[hit] / 2;
+				grid.remove(hit, targetX[hit] - half, targetY[hit] - half,
+						targetSize[hit], targetSize[hit]);
+				targets.flags[hit] |= EntityStore.DEAD;
+				shots.remove(i);
+			} else
+			{
+				i++;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * How far a projectile moved sideways in its last step. Moving it adds
+	 * the new swing amount, so that is also the distance moved.
+	 * 
+	 * @return The x distance of the last step, or 0 if it hasn't moved yet.
+	 */
+	private static int lastStepX(EntityStore<?> shots, int i)
+	{
+		return (shots.flags[i] & EntityStore.STEPPED) != 0
+				? shots.swing.swing[i] : 0;
+	}
+
+	/**
+	 * How far a projectile moved up or down in its last step.
+	 * 
+	 * @return The y distance of the last step, or 0 if it hasn't moved yet.
+	 */
+	private static int lastStepY(EntityStore<?> shots, int i)
+	{
+		return (shots.flags[i] & EntityStore.STEPPED) != 0
+				? shots.position.yVel[i] : 0;
+	}
+}
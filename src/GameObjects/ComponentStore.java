@@ -0,0 +1,66 @@
+package GameObjects;
+
+import java.util.Arrays;
+
+/**
+ * ComponentStore holds one kind of component, such as position or collider,
+ * for every entity of an archetype, in parallel arrays indexed by slot. An
+ * EntityStore owns one of these for each component its archetype has, and
+ * keeps their slots in step as entities are added and removed. The systems
+ * then read and write the arrays directly, one component at a time.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+abstract class ComponentStore
+{
+	/**
+	 * Grows the arrays to the passed capacity, keeping the current entries,
+	 * or creates them if they don't exist yet.
+	 * 
+	 * @param capacity
+	 *            The new capacity.
+	 */
+	abstract void allocate(int capacity);
+
+	/**
+	 * Sets every entry of a slot back to zero, or null.
+	 * 
+	 * @param slot
+	 *            The slot to reset.
+	 */
+	abstract void reset(int slot);
+
+	/**
+	 * Copies every entry of one slot over another.
+	 * 
+	 * @param from
+	 *            The slot to copy.
+	 * @param to
+	 *            The slot to copy it over.
+	 */
+	abstract void copy(int from, int to);
+
+	/**
+	 * Lets go of any objects held by a range of slots that are no longer
+	 * live, so they can be collected.
+	 * 
+	 * @param from
+	 *            The first slot.
+	 * @param to
+	 *            One past the last slot.
+	 */
+	void release(int from, int to)
+	{
+		// Only stores holding objects have anything to let go of.
+	}
+
+	/**
+	 * Grows one array, or creates it if it is null.
+	 */
+	static int[] grow(int[] array, int capacity)
+	{
+		return array == null ? new int[capacity]
+				: Arrays.copyOf(array, capacity);
+	}
+}
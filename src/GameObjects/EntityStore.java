@@ -0,0 +1,241 @@
+package GameObjects;
+
+import java.util.Arrays;
+
+/**
+ * EntityStore keeps every entity of one archetype: one kind of game object,
+ * made of a fixed set of components. Each component the archetype has is a
+ * ComponentStore of parallel primitive arrays (structure of arrays), so the
+ * systems that move, collide and draw entities walk dense arrays of just the
+ * components they need, in order, instead of following a reference to every
+ * ship. Components the archetype doesn't have are null, and cost nothing.
+ * 
+ * Each slot also has a GameObject view, created once and reused, that reads
+ * and writes that slot's entries. The views let the drawing code and anything
+ * else that wants an object keep working unchanged.
+ * 
+ * Entities are removed by copying the last entity into the removed slot, so
+ * the live entities are always slots 0 through size() - 1. A view always
+ * belongs to its slot, not to the entity that was in it.
+ * 
+ * @author Mason Dumaine
+ *
+ * @param <T>
+ *            The kind of view handed out for each slot.
+ */
+public class EntityStore<T extends GameObject>
+{
+	/**
+	 * Creates the view for a slot the first time the slot is used.
+	 * 
+	 * @param <T>
+	 *            The kind of view created.
+	 */
+	public interface ViewFactory<T extends GameObject>
+	{
+		T create(EntityStore<T> store, int slot);
+	}
+
+	// Bits used in the flags array.
+	public static final int MOVING = 1, VISIBLE = 2, SWING_RIGHT = 4,
+			PULSE_GROWING = 8, DEAD = 16, STEPPED = 32, MIRRORED = 64;
+
+	// The components an archetype can be made of, and all of them together
+	// for the stand alone objects.
+	public static final int POSITION = 1, COLLIDER = 2, RENDER = 4, PATH = 8,
+			SWING = 16, ALL = 31;
+
+	// The components, or null for the ones this archetype doesn't have. Only
+	// the first size() entries of each array are live.
+	public final PositionStore position;
+	public final ColliderStore collider;
+	public final RenderStore render;
+	public final PathStore path;
+	public final SwingStore swing;
+
+	// State bits every entity has, which any system may read or set.
+	public int[] flags;
+
+	// The components this archetype has, as a mix of POSITION, COLLIDER and
+	// so on, and the same components as a list to grow and copy.
+	private final int archetype;
+	private final ComponentStore[] components;
+
+	// The view for each slot, or null if the slot has never been used.
+	private GameObject[] views;
+
+	// Creates views for new slots.
+	private final ViewFactory<T> factory;
+
+	// The number of live entities.
+	private int count = 0;
+
+	/**
+	 * Creates an empty store.
+	 * 
+	 * @param capacity
+	 *            How many entities the store is expected to hold at once.
+	 * @param archetype
+	 *            The components every entity has, a mix of POSITION,
+	 *            COLLIDER, RENDER, PATH and SWING.
+	 * @param factory
+	 *            Creates the view for each slot.
+	 */
+	public EntityStore(int capacity, int archetype, ViewFactory<T> factory)
+	{
+		this.archetype = archetype;
+		this.factory = factory;
+		position = (archetype & POSITION) != 0 ? new PositionStore() : null;
+		collider = (archetype & COLLIDER) != 0 ? new ColliderStore() : null;
+		render = (archetype & RENDER) != 0 ? new RenderStore() : null;
+		path = (archetype & PATH) != 0 ? new PathStore() : null;
+		swing = (archetype & SWING) != 0 ? new SwingStore() : null;
+
+		ComponentStore[] all = { position, collider, render, path, swing };
+		int present = 0;
+		for (ComponentStore component : all)
+		{
+			if (component != null)
+			{
+				all[present++] = component;
+			}
+		}
+		components = Arrays.copyOf(all, present);
+
+		allocate(Math.max(1, capacity));
+	}
+
+	/**
+	 * Whether every entity in this store has the passed components.
+	 * 
+	 * @param components
+	 *            A mix of POSITION, COLLIDER, RENDER, PATH and SWING.
+	 * @return True if the archetype has all of them.
+	 */
+	public boolean has(int components)
+	{
+		return (archetype & components) == components;
+	}
+
+	/**
+	 * Adds a new entity with every value set to zero and no color.
+	 * 
+	 * @return The slot of the new entity.
+	 */
+	public int add()
+	{
+		if (count == flags.length)
+		{
+			allocate(flags.length * 2);
+		}
+
+		int slot = count++;
+		flags[slot] = 0;
+		for (ComponentStore component : components)
+		{
+			component.reset(slot);
+		}
+
+		if (views[slot] == null && factory != null)
+		{
+			views[slot] = factory.create(this, slot);
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes the entity in the slot by copying the last entity over it. After
+	 * this call the entity that was in the last slot lives in the passed slot.
+	 * 
+	 * @param slot
+	 *            The slot to remove.
+	 */
+	public void remove(int slot)
+	{
+		int last = --count;
+		if (slot != last)
+		{
+			flags[slot] = flags[last];
+			for (ComponentStore component : components)
+			{
+				component.copy(last, slot);
+			}
+		}
+		for (ComponentStore component : components)
+		{
+			component.release(last, last + 1);
+		}
+	}
+
+	/**
+	 * Removes every entity. The arrays and views are kept for reuse.
+	 */
+	public void clear()
+	{
+		for (ComponentStore component : components)
+		{
+			component.release(0, count);
+		}
+		count = 0;
+	}
+
+	/**
+	 * Gets the number of live entities.
+	 * 
+	 * @return The number of live entities.
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets the view for a live slot.
+	 * 
+	 * @param slot
+	 *            The slot, from 0 to size() - 1.
+	 * @return The view that reads and writes that slot.
+	 */
+	@SuppressWarnings("unchecked")
+	public T view(int slot)
+	{
+		return (T) views[slot];
+	}
+
+	/**
+	 * Attaches a view that was created outside of the store, used by stand
+	 * alone objects that own a store of their own.
+	 * 
+	 * @param slot
+	 *            The slot the view belongs to.
+	 * @param view
+	 *            The view.
+	 */
+	void bind(int slot, GameObject view)
+	{
+		views[slot] = view;
+	}
+
+	/**
+	 * Grows every array to the passed capacity, keeping the current entries.
+	 * 
+	 * @param capacity
+	 *            The new capacity.
+	 */
+	private void allocate(int capacity)
+	{
+		for (ComponentStore component : components)
+		{
+			component.allocate(capacity);
+		}
+		if (flags == null)
+		{
+			flags = new int[capacity];
+			views = new GameObject[capacity];
+		} else
+		{
+			flags = Arrays.copyOf(flags, capacity);
+			views = Arrays.copyOf(views, capacity);
+		}
+	}
+}
@@ -1,25 +1,24 @@
 package GameObjects;
 
 import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Rectangle;
 
 /**
  * The GameObject class is the basis from which all other game objects inherit
- * their basic item properties: x,y position, size, velocities, hitbox and
- * color.
+ * their basic item properties: x,y position, size, velocities and color.
+ * 
+ * The properties themselves live in the components of an EntityStore, and a
+ * GameObject is a view of one slot of that store. Objects made with the public
+ * constructors get a store of their own with a single slot and every
+ * component.
  * 
  * @author Mason Dumaine
  *
  */
 public abstract class GameObject
 {
-	// To keep track of the game entity's various properties.
-	protected int xPos, yPos, size, xVel, yVel;
-	protected Color objectColor;
-
-	// Used for hit detection.
-	protected Rectangle hitbox;
+	// The store holding this object's properties, and which slot is ours.
+	protected final EntityStore<?> store;
+	protected final int slot;
 
 	/**
 	 * The default constructor for this class initializes the data members with
@@ -27,8 +26,9 @@ public abstract class GameObject
 	 */
 	public GameObject()
 	{
-		xPos = yPos = size = xVel = yVel = 0;
-		hitbox = new Rectangle();
+		store = new EntityStore<GameObject>(1, EntityStore.ALL, null);
+		slot = store.add();
+		store.bind(slot, this);
 	}
 
 	/**
@@ -46,12 +46,46 @@ public abstract class GameObject
 	 */
 	public GameObject(int xPos, int yPos, int size, Color color)
 	{
-		this.xPos = xPos;
-		this.yPos = yPos;
-		this.size = size;
-		this.objectColor = color;
+		this();
+		reset(xPos, yPos, size, color);
+	}
 
-		this.hitbox = new Rectangle(xPos - size, yPos - size, size, size);
+	/**
+	 * This constructor is used by an EntityStore to create the view for one of
+	 * its slots.
+	 * 
+	 * @param store
+	 *            The store that holds the object's properties.
+	 * @param slot
+	 *            The slot this object reads and writes.
+	 */
+	protected GameObject(EntityStore<?> store, int slot)
+	{
+		this.store = store;
+		this.slot = slot;
+	}
+
+	/**
+	 * reset() puts a used object back into the same state the main constructor
+	 * would leave it in, so that it can be reused instead of creating a new
+	 * one.
+	 * 
+	 * @param xPos
+	 *            The x position that the object is centered on.
+	 * @param yPos
+	 *            The y position that the object is centered on.
+	 * @param size
+	 *            The width of the square that represents the object.
+	 * @param color
+	 *            The color of the object.
+	 */
+	public void reset(int xPos, int yPos, int size, Color color)
+	{
+		store.position.x[slot] = xPos;
+		store.position.y[slot] = yPos;
+		store.collider.size[slot] = size;
+		store.render.color[slot] = color;
+		store.position.xVel[slot] = store.position.yVel[slot] = 0;
 	}
 
 	/**
@@ -61,7 +95,7 @@ public abstract class GameObject
 	 */
 	public int getX()
 	{
-		return xPos;
+		return store.position.x[slot];
 	}
 
 	/**
@@ -71,7 +105,7 @@ public abstract class GameObject
 	 */
 	public int getY()
 	{
-		return yPos;
+		return store.position.y[slot];
 	}
 
 	/**
@@ -82,7 +116,7 @@ public abstract class GameObject
 	 */
 	public void setX(int x)
 	{
-		this.xPos = x;
+		store.position.x[slot] = x;
 	}
 
 	/**
@@ -93,7 +127,7 @@ public abstract class GameObject
 	 */
 	public void setY(int y)
 	{
-		this.yPos = y;
+		store.position.y[slot] = y;
 	}
 
 	/**
@@ -103,7 +137,7 @@ public abstract class GameObject
 	 */
 	public int getXVel()
 	{
-		return this.xVel;
+		return store.position.xVel[slot];
 	}
 
 	/**
@@ -113,7 +147,7 @@ public abstract class GameObject
 	 */
 	public int getYVel()
 	{
-		return this.yVel;
+		return store.position.yVel[slot];
 	}
 
 	/**
@@ -124,7 +158,7 @@ public abstract class GameObject
 	 */
 	public void setXVel(int xVel)
 	{
-		this.xVel = xVel;
+		store.position.xVel[slot] = xVel;
 	}
 
 	/**
@@ -135,67 +169,33 @@ public abstract class GameObject
 	 */
 	public void setYVel(int yVel)
 	{
-		this.yVel = yVel;
-	}
-
-	/**
-	 * A simple getter for the ship color.
-	 * 
-	 * @return Gets the object's current color.
-	 */
-	public Color getColor()
-	{
-		return objectColor;
+		store.position.yVel[slot] = yVel;
 	}
 
 	/**
-	 * Move() is defined in each child class. Move both modifies the object's
-	 * x,y position based off of the x,y velocity, and updates the location of
-	 * the hitbox.
-	 */
-	public abstract void move();
-
-	/**
-	 * updateHitBox() is used to realign the hitbox of the object each time
-	 * move() is called.
+	 * A simple getter for the object's size.
 	 * 
+	 * @return The width of the square that represents the object.
 	 */
-	public void updateHitBox()
+	public int getSize()
 	{
-		hitbox.setLocation(xPos - (size / 2), yPos - (size / 2));
+		return store.collider.size[slot];
 	}
 
 	/**
-	 * intersects() returns true when the passed rectangle is within
-	 * this.hitbox.
-	 * 
-	 * @param r
-	 *            The rectangle to be checked against.
-	 * 
-	 * @return Whether or not the passed rectangle intersects the hitbox.
-	 */
-	public boolean intersects(Rectangle r)
-	{
-		return hitbox.intersects(r);
-	}
-
-	/**
-	 * Returns the rectangle hitbox.
+	 * A simple getter for the ship color.
 	 * 
-	 * @return The hitbox rectangle.
+	 * @return Gets the object's current color.
 	 */
-	public Rectangle getHitbox()
+	public Color getColor()
 	{
-		return hitbox;
+		return store.render.color[slot];
 	}
 
 	/**
-	 * Drawing is different between SpaceShip and Projectile, however, it is a
-	 * method that both classes need.
-	 * 
-	 * @param pen
-	 *            The graphics object to which we draw.
+	 * Move() is defined in each child class. Move modifies the object's x,y
+	 * position based off of the x,y velocity.
 	 */
-	public abstract void drawObject(Graphics pen);
+	public abstract void move();
 
 }
@@ -0,0 +1,138 @@
+package GameObjects;
+
+/**
+ * MovementSystem moves entities by their position components, one archetype
+ * at a time. Each kind of movement is a loop over the dense arrays of the
+ * components it needs, so adding a new kind of entity only takes a new loop
+ * here, not a new subclass, and nothing is looked up through a view or a
+ * virtual call while the entities move.
+ * 
+ * Enemies following the enemy path are not moved here: where they are is
+ * looked up from their PathStore ages by the game itself.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class MovementSystem
+{
+	/**
+	 * Moves a range of ships by their velocities, if they are moving, and
+	 * advances the thruster animation of the visible ones by one frame.
+	 * 
+	 * @param ships
+	 *            The ships, with position and render components.
+	 * @param from
+	 *            The first slot to move.
+	 * @param to
+	 *            One past the last slot to move.
+	 */
+	public static void moveShips(EntityStore<?> ships, int from, int to)
+	{
+		int[] x = ships.position.x, y = ships.position.y;
+		int[] xVel = ships.position.xVel, yVel = ships.position.yVel;
+		int[] anim = ships.render.anim, flags = ships.flags;
+
+		for (int i = from; i < to; i++)
+		{
+			// if the ship is supposed to be moving.
+			if ((flags[i] & EntityStore.MOVING) != 0)
+			{
+				x[i] += xVel[i];
+				y[i] += yVel[i];
+			}
+
+			// The thruster cycles through four frames.
+			if ((flags[i] & EntityStore.VISIBLE) != 0)
+			{
+				anim[i] = (anim[i] + 1) & 3;
+			}
+		}
+	}
+
+	/**
+	 * Removes the projectiles that have left the play field, and moves the
+	 * rest one step along their waves. A removal moves the last shot into
+	 * slot i, so i is only advanced after a move.
+	 * 
+	 * @param shots
+	 *            The projectiles, with position, collider, render and swing
+	 *            components.
+	 * @param fieldSize
+	 *            The width and height of the play field. A shot on or past
+	 *            its edge is gone.
+	 */
+	public static void moveShots(EntityStore<?> shots, int fieldSize)
+	{
+		int[] x = shots.position.x, y = shots.position.y;
+		int i = 0;
+		while (i < shots.size())
+		{
+			if (x[i] >= fieldSize || x[i] <= 0 || y[i] >= fieldSize
+					|| y[i] <= 0)
+			{
+				shots.remove(i);
+			} else
+			{
+				moveShot(shots, i);
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Moves a single projectile along its wave, and advances its pulse
+	 * animation. The shot swings from side to side and back, a little
+	 * further each step, until it reaches Projectile.SWING_X_LENGTH.
+	 * 
+	 * @param shots
+	 *            The projectiles, with position, collider, render and swing
+	 *            components.
+	 * @param i
+	 *            The slot of the projectile.
+	 */
+	public static void moveShot(EntityStore<?> shots, int i)
+	{
+		int[] flags = shots.flags, anim = shots.render.anim;
+		int swingAmp = shots.swing.swing[i];
+
+		// This follows a similar formula to the pulsing of the shot.
+		if ((flags[i] & EntityStore.SWING_RIGHT) != 0)
+		{
+			swingAmp++;
+			if (swingAmp == Projectile.SWING_X_LENGTH)
+			{
+				flags[i] &= ~EntityStore.SWING_RIGHT;
+			}
+		} else
+		{
+			swingAmp--;
+			if (swingAmp == -Projectile.SWING_X_LENGTH)
+			{
+				flags[i] |= EntityStore.SWING_RIGHT;
+			}
+		}
+		shots.swing.swing[i] = swingAmp;
+
+		// Finally modify the x,y position of the shot.
+		shots.position.x[i] += swingAmp;
+		shots.position.y[i] += shots.position.yVel[i];
+		flags[i] |= EntityStore.STEPPED;
+
+		// This if-statement structure increments the size of
+		// the pulse until it reaches a certain size. Then it
+		// begins decreasing until a certain size.
+		int pulseSize = anim[i];
+		if (pulseSize > shots.collider.size[i] * 2 || pulseSize < 0)
+		{
+			flags[i] ^= EntityStore.PULSE_GROWING;
+		}
+
+		if ((flags[i] & EntityStore.PULSE_GROWING) != 0)
+		{
+			anim[i] = pulseSize + 1;
+		} else
+		{
+			anim[i] = pulseSize - 1;
+		}
+	}
+}
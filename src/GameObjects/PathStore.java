@@ -0,0 +1,35 @@
+package GameObjects;
+
+/**
+ * PathStore is the component of entities that follow a precomputed path, like
+ * the enemies: how far along it each one is.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class PathStore extends ComponentStore
+{
+	// How many ticks each entity has moved along the path, and which segment
+	// of it that falls on.
+	public int[] age, segment;
+
+	@Override
+	void allocate(int capacity)
+	{
+		age = grow(age, capacity);
+		segment = grow(segment, capacity);
+	}
+
+	@Override
+	void reset(int slot)
+	{
+		age[slot] = segment[slot] = 0;
+	}
+
+	@Override
+	void copy(int from, int to)
+	{
+		age[to] = age[from];
+		segment[to] = segment[from];
+	}
+}
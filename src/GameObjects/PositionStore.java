@@ -0,0 +1,38 @@
+package GameObjects;
+
+/**
+ * PositionStore is the position and velocity component: where each entity is
+ * centered, and how far it moves in a tick.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class PositionStore extends ComponentStore
+{
+	// The center of each entity, and its velocity.
+	public int[] x, y, xVel, yVel;
+
+	@Override
+	void allocate(int capacity)
+	{
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		xVel = grow(xVel, capacity);
+		yVel = grow(yVel, capacity);
+	}
+
+	@Override
+	void reset(int slot)
+	{
+		x[slot] = y[slot] = xVel[slot] = yVel[slot] = 0;
+	}
+
+	@Override
+	void copy(int from, int to)
+	{
+		x[to] = x[from];
+		y[to] = y[from];
+		xVel[to] = xVel[from];
+		yVel[to] = yVel[from];
+	}
+}
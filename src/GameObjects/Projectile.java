@@ -14,20 +14,7 @@ import java.awt.Graphics;
 public class Projectile extends GameObject
 {
 	// How far left or right the shot goes when it swings.
-	private final int SWING_X_LENGTH = 6;
-
-	// How large the size of the pulse animation is.
-	private int pulseSize = 0;
-
-	// Initializes the data member that keeps track of how
-	// far the swing is with the lowest value.
-	private int swingAmp = -SWING_X_LENGTH;
-
-	// The direction of the swing.
-	private boolean swingRight = true;
-
-	// Whether or not the pulse size is increasing.
-	private boolean pulseSizeIsIncreasing = true;
+	static final int SWING_X_LENGTH = 6;
 
 	/**
 	 * The default constructor for projectiles uses the superclass' default
@@ -57,36 +44,58 @@ public class Projectile extends GameObject
 	}
 
 	/**
-	 * The unique drawing method for the projectile features, a pulsing
-	 * animation as well as drawing the projectile in the correct location.
+	 * Creates the view of a projectile stored in an EntityStore.
+	 * 
+	 * @param store
+	 *            The store holding the projectile.
+	 * @param slot
+	 *            The slot of the projectile.
+	 */
+	public Projectile(EntityStore<?> store, int slot)
+	{
+		super(store, slot);
+	}
+
+	/**
+	 * Resets the swing and pulse animations along with the basic properties,
+	 * so that a recycled shot looks like a brand new one. The swing starts at
+	 * its lowest value, heading right, and the pulse starts growing. It
+	 * hasn't stepped yet, so it has no path to sweep.
+	 */
+	public void reset(int xPos, int yPos, int size, Color c)
+	{
+		super.reset(xPos, yPos, size, c);
+		store.render.anim[slot] = 0;
+		store.swing.swing[slot] = -SWING_X_LENGTH;
+		store.flags[slot] = EntityStore.SWING_RIGHT
+				| EntityStore.PULSE_GROWING;
+	}
+
+	/**
+	 * Draws a projectile shape by shape: the base shot and the pulse ring
+	 * around it.
 	 * 
 	 * @param pen
 	 *            The graphics object to which is drawn.
+	 * @param xPos
+	 *            X position where the shot is centered.
+	 * @param yPos
+	 *            Y position where the shot is centered.
+	 * @param size
+	 *            The size of the shot.
+	 * @param pulseSize
+	 *            How much bigger than the shot the pulse ring is.
+	 * @param color
+	 *            The color of the shot.
 	 */
-	public void drawObject(Graphics pen)
+	public static void paint(Graphics pen, int xPos, int yPos, int size,
+			int pulseSize, Color color)
 	{
 		// Tracks the size of the pulse.
 		int sizeThisFrame = size + pulseSize;
 
-		// This if-statement structure increments the size of
-		// the pulse until it reaches a certain size. Then it
-		// begins decreasing until a certain size.
-		if (pulseSize > size * 2 || pulseSize < 0)
-		{
-			pulseSizeIsIncreasing = !pulseSizeIsIncreasing;
-		}
-
-		if (pulseSizeIsIncreasing)
-		{
-			pulseSize++;
-		} else
-		{
-			pulseSize--;
-		}
-
 		// This draws the actual base shot.
-		pen.setColor(objectColor);
-		pen.fillOval(xPos - (size / 2), yPos - (size / 2), size, size);
+		paintCore(pen, xPos, yPos, size, color);
 		pen.setColor(Color.white);
 
 		// This draws the pulse.
@@ -94,6 +103,27 @@ public class Projectile extends GameObject
 				sizeThisFrame, sizeThisFrame);
 	}
 
+	/**
+	 * Draws just the base shot of a projectile, without the pulse ring.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn.
+	 * @param xPos
+	 *            X position where the shot is centered.
+	 * @param yPos
+	 *            Y position where the shot is centered.
+	 * @param size
+	 *            The size of the shot.
+	 * @param color
+	 *            The color of the shot.
+	 */
+	public static void paintCore(Graphics pen, int xPos, int yPos, int size,
+			Color color)
+	{
+		pen.setColor(color);
+		pen.fillOval(xPos - (size / 2), yPos - (size / 2), size, size);
+	}
+
 	/**
 	 * I wanted the shot's movement to be unique, so I made it travel along a
 	 * wave. It also has a side effect of testing the collision detection in
@@ -101,28 +131,6 @@ public class Projectile extends GameObject
 	 */
 	public void move()
 	{
-		// This follows a similar formula to the pulsing of the shot.
-		if (swingRight)
-		{
-			swingAmp++;
-			if (swingAmp == SWING_X_LENGTH)
-			{
-				swingRight = !swingRight;
-			}
-		} else if (!swingRight)
-		{
-			swingAmp--;
-			if (swingAmp == -SWING_X_LENGTH)
-			{
-				swingRight = !swingRight;
-			}
-		}
-
-		// Finally modify the x,y position of the shot.
-		xPos += swingAmp;
-		yPos += yVel;
-
-		// Then make sure that the hitbox is in the right place!
-		updateHitBox();
+		MovementSystem.moveShot(store, slot);
 	}
 }
@@ -0,0 +1,49 @@
+package GameObjects;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * RenderStore is the render state component: what each entity looks like,
+ * apart from where it is and how big it is.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class RenderStore extends ComponentStore
+{
+	// The color of each entity.
+	public Color[] color;
+
+	// The animation frame: the thruster counter for ships, the pulse size for
+	// projectiles.
+	public int[] anim;
+
+	@Override
+	void allocate(int capacity)
+	{
+		color = color == null ? new Color[capacity]
+				: Arrays.copyOf(color, capacity);
+		anim = grow(anim, capacity);
+	}
+
+	@Override
+	void reset(int slot)
+	{
+		color[slot] = null;
+		anim[slot] = 0;
+	}
+
+	@Override
+	void copy(int from, int to)
+	{
+		color[to] = color[from];
+		anim[to] = anim[from];
+	}
+
+	@Override
+	void release(int from, int to)
+	{
+		Arrays.fill(color, from, to, null);
+	}
+}
@@ -13,15 +13,9 @@ import java.awt.Graphics;
  */
 public class SpaceShip extends GameObject
 {
-	// These two booleans are used mainly for the enemy array, and control the
-	// beginning spawning of the enemies.
-	protected boolean isMoving = false, isVisible = false;
-
-	// This is used for the thruster animation inside the drawObject() method.
-	private int thrustCounter = 0;
-
-	// This keeps track of how far down the screen the ship has moved.
-	public int rowCounter = 0;
+	// The directions a ship can be heading in, which decide where its
+	// thruster is drawn.
+	public static final int RIGHT = 0, LEFT = 1, DOWN = 2, UP = 3, STILL = 4;
 
 	/**
 	 * Default constructor for the SpaceShip just uses the default super
@@ -50,6 +44,35 @@ public class SpaceShip extends GameObject
 		super(xPos, yPos, size, c);
 	}
 
+	/**
+	 * Creates the view of a ship stored in an EntityStore.
+	 * 
+	 * @param store
+	 *            The store holding the ship.
+	 * @param slot
+	 *            The slot of the ship.
+	 */
+	public SpaceShip(EntityStore<?> store, int slot)
+	{
+		super(store, slot);
+	}
+
+	/**
+	 * Resets the movement and animation state along with the basic properties,
+	 * so that a recycled ship starts out hidden and still like a new one.
+	 */
+	public void reset(int xPos, int yPos, int size, Color c)
+	{
+		super.reset(xPos, yPos, size, c);
+		store.flags[slot] = 0;
+		store.render.anim[slot] = 0;
+		if (store.path != null)
+		{
+			store.path.age[slot] = 0;
+			store.path.segment[slot] = 0;
+		}
+	}
+
 	/**
 	 * Simple setter for if the ship is visible or not.
 	 * 
@@ -58,7 +81,7 @@ public class SpaceShip extends GameObject
 	 */
 	public void setIsVisible(boolean vis)
 	{
-		isVisible = vis;
+		setFlag(EntityStore.VISIBLE, vis);
 	}
 
 	/**
@@ -69,7 +92,7 @@ public class SpaceShip extends GameObject
 	 */
 	public void setIsMoving(boolean mov)
 	{
-		isMoving = mov;
+		setFlag(EntityStore.MOVING, mov);
 	}
 
 	/**
@@ -79,82 +102,191 @@ public class SpaceShip extends GameObject
 	 */
 	public boolean getIsMoving()
 	{
-		return isMoving;
+		return (store.flags[slot] & EntityStore.MOVING) != 0;
 	}
 
 	/**
-	 * move() both modifies the x,y position of the ship based on it's
-	 * velocities, and updates the hitbox's position.
+	 * Getter for if the ship is visible or not.
+	 * 
+	 * @return visible or not?
+	 */
+	public boolean getIsVisible()
+	{
+		return (store.flags[slot] & EntityStore.VISIBLE) != 0;
+	}
+
+	/**
+	 * Getter for the thruster animation frame.
+	 * 
+	 * @return The frame, from 0 to 3.
+	 */
+	public int getThrustCounter()
+	{
+		return store.render.anim[slot];
+	}
+
+	/**
+	 * Getter for how far along the enemy path the ship has moved.
+	 * 
+	 * @return The number of ticks the ship has been moving along the path,
+	 *         or 0 if it doesn't follow one.
+	 */
+	public int getAge()
+	{
+		return store.path == null ? 0 : store.path.age[slot];
+	}
+
+	/**
+	 * move() modifies the x,y position of the ship based on it's velocities,
+	 * and advances the thruster animation.
 	 * 
 	 */
 	public void move()
 	{
-		// if the ship is supposed to be moving.
-		if (isMoving)
+		MovementSystem.moveShips(store, slot, slot + 1);
+	}
+
+	/**
+	 * Works out which way a ship is heading from its velocities. Sideways
+	 * movement wins over up and down, as it does for the thruster.
+	 * 
+	 * @param xVel
+	 *            The ship's x velocity.
+	 * @param yVel
+	 *            The ship's y velocity.
+	 * @return RIGHT, LEFT, DOWN, UP or STILL.
+	 */
+	public static int direction(int xVel, int yVel)
+	{
+		if (xVel > 0)
 		{
-			super.xPos += xVel;
-			super.yPos += yVel;
+			return RIGHT;
+		} else if (xVel < 0)
+		{
+			return LEFT;
+		} else if (yVel > 0)
+		{
+			return DOWN;
+		} else if (yVel < 0)
+		{
+			return UP;
+		}
+		return STILL;
+	}
+
+	/**
+	 * Draws a ship shape by shape: the thruster, in the correct proportions
+	 * and direction, and then the square body on top of it.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn.
+	 * @param xPos
+	 *            X position where the ship is centered.
+	 * @param yPos
+	 *            Y position where the ship is centered.
+	 * @param size
+	 *            The size of the square ship.
+	 * @param direction
+	 *            Which way the ship is heading.
+	 * @param thrustCounter
+	 *            The thruster animation frame, from 0 to 3.
+	 * @param color
+	 *            The color of the ship's body.
+	 */
+	public static void paint(Graphics pen, int xPos, int yPos, int size,
+			int direction, int thrustCounter, Color color)
+	{
+		// Choose a color for the frame to animate the thruster.
+		pen.setColor(thrusterColor(thrustCounter));
+		paintThruster(pen, xPos, yPos, size, direction, thrustCounter);
+
+		// Draw the actual square ship.
+		pen.setColor(color);
+		pen.fillRect(xPos - (size / 2), yPos - (size / 2), size, size);
+	}
 
-			// make sure to update the hitbox!
-			updateHitBox();
+	/**
+	 * Draws just a ship's thruster, in the pen's current color.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn.
+	 * @param xPos
+	 *            X position where the ship is centered.
+	 * @param yPos
+	 *            Y position where the ship is centered.
+	 * @param size
+	 *            The size of the square ship.
+	 * @param direction
+	 *            Which way the ship is heading.
+	 * @param thrustCounter
+	 *            The thruster animation frame, from 0 to 3.
+	 */
+	public static void paintThruster(Graphics pen, int xPos, int yPos,
+			int size, int direction, int thrustCounter)
+	{
+		// This draws the thruster in the correct proportions and
+		// in the correct direction.
+		switch (direction)
+		{
+		case RIGHT:
+			pen.fillOval(xPos - size - thrustCounter, yPos - (size / 4), size,
+					size / 2);
+			break;
+		case LEFT:
+			pen.fillOval(xPos + thrustCounter, yPos - (size / 4), size,
+					size / 2);
+			break;
+		case DOWN:
+			pen.fillOval(xPos - (size / 4), yPos - size - thrustCounter,
+					size / 2, size);
+			break;
+		case UP:
+			pen.fillOval(xPos - (size / 4), yPos + thrustCounter, size / 2,
+					size);
+			break;
+		default:
+			break;
 		}
 	}
 
 	/**
-	 * drawObject() is responsible for drawing the base of the ship (a square)
-	 * and the thruster animation for the ship.
+	 * Gets the thruster color for a frame of the thruster animation.
+	 * 
+	 * @param thrustCounter
+	 *            The animation frame, from 0 to 3.
+	 * @return The color of the thruster in that frame.
 	 */
-	public void drawObject(Graphics pen)
+	public static Color thrusterColor(int thrustCounter)
 	{
-		// Only draw if the ship is visible.
-		if (isVisible)
+		switch (thrustCounter)
+		{
+		case 0:
+			return Color.red;
+		case 1:
+			return Color.orange;
+		case 2:
+			return Color.yellow;
+		default:
+			return Color.white;
+		}
+	}
+
+	/**
+	 * Sets or clears one bit of this ship's flags.
+	 * 
+	 * @param bit
+	 *            The flag to change.
+	 * @param on
+	 *            Whether the flag should be set.
+	 */
+	private void setFlag(int bit, boolean on)
+	{
+		if (on)
+		{
+			store.flags[slot] |= bit;
+		} else
 		{
-			// Choose a color for the frame to animate the thruster.
-			switch (thrustCounter)
-			{
-			case 0:
-				pen.setColor(Color.red);
-				break;
-			case 1:
-				pen.setColor(Color.orange);
-				break;
-			case 2:
-				pen.setColor(Color.yellow);
-				break;
-			case 3:
-				pen.setColor(Color.white);
-				break;
-			case 4:
-				thrustCounter = 0;
-				break;
-			default:
-				thrustCounter = 0;
-			}
-
-			// This draws the thruster in the correct proportions and
-			// in the correct direction.
-			if (xVel > 0)
-			{
-				pen.fillOval(xPos - size - thrustCounter, yPos - (size / 4),
-						size, size / 2);
-			} else if (xVel < 0)
-			{
-				pen.fillOval(xPos + thrustCounter, yPos - (size / 4), size,
-						size / 2);
-			} else if (yVel > 0)
-			{
-				pen.fillOval(xPos - (size / 4), yPos - size - thrustCounter,
-						size / 2, size);
-			} else if (yVel < 0)
-			{
-				pen.fillOval(xPos - (size / 4), yPos + thrustCounter, size / 2,
-						size);
-			}
-			thrustCounter++;
-
-			// Draw the actual square ship.
-			pen.setColor(objectColor);
-			pen.fillRect(xPos - (size / 2), yPos - (size / 2), size, size);
+			store.flags[slot] &= ~bit;
 		}
 	}
 }
@@ -0,0 +1,447 @@
+package GameObjects;
+
+import java.util.Arrays;
+
+/**
+ * SpatialHashGrid is a broad-phase collision structure. The play field is
+ * divided into square cells, and each object is filed under every cell that its
+ * hitbox overlaps. A query then only has to look at the objects sharing a cell
+ * with the queried rectangle, instead of every object in the game.
+ * 
+ * The cells are stored in a hash table that uses int arrays as linked lists,
+ * so rebuilding the grid every frame does not create any garbage. If more
+ * objects are filed than the grid was sized for, the entry arrays grow and
+ * the table is rehashed to match, so the buckets stay short; after that the
+ * grid is the size it needs and rebuilding it is garbage free again. Objects
+ * are identified by an int id, usually their EntityStore slot, and the grid
+ * keeps its own copy of each hitbox.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class SpatialHashGrid
+{
+	// The width and height of a single cell.
+	private final int cellSize;
+
+	// The first entry of each bucket, or -1 if the bucket is empty.
+	private int[] bucketHead;
+
+	// Used to wrap a cell hash into the bucket table.
+	private int bucketMask;
+
+	// One entry per (object, cell) pair. next links entries in the same bucket
+	// and an id of -1 marks a removed entry.
+	private int[] entryId, entryCellX, entryCellY, entryNext;
+	private int[] entryLeft, entryTop, entryWidth, entryHeight;
+
+	// The number of entries currently in use.
+	private int entryCount = 0;
+
+	/**
+	 * Creates an empty grid.
+	 * 
+	 * @param cellSize
+	 *            The width of the square cells, usually the size of a ship.
+	 * @param expectedObjects
+	 *            How many objects the grid should be sized for up front.
+	 */
+	public SpatialHashGrid(int cellSize, int expectedObjects)
+	{
+		this.cellSize = cellSize;
+
+		// Every object covers at most 4 cells when it is no bigger than a cell.
+		int capacity = Math.max(16, expectedObjects * 4);
+		entryId = new int[capacity];
+		entryCellX = new int[capacity];
+		entryCellY = new int[capacity];
+		entryNext = new int[capacity];
+		entryLeft = new int[capacity];
+		entryTop = new int[capacity];
+		entryWidth = new int[capacity];
+		entryHeight = new int[capacity];
+
+		bucketHead = new int[bucketsFor(capacity)];
+		bucketMask = bucketHead.length - 1;
+		Arrays.fill(bucketHead, -1);
+	}
+
+	/**
+	 * Works out how big the bucket table should be for a number of entries:
+	 * a power of two, between one and two buckets per object.
+	 * 
+	 * @param capacity
+	 *            The number of entries, 4 per object.
+	 * @return The number of buckets.
+	 */
+	private static int bucketsFor(int capacity)
+	{
+		return Integer.highestOneBit(Math.max(16, capacity / 4)) * 2;
+	}
+
+	/**
+	 * Makes a bigger bucket table and links every entry into it again. Each
+	 * bucket keeps its entries newest first, so queries find the same
+	 * objects as they would have in a grid that was this size all along.
+	 * 
+	 * @param buckets
+	 *            The new number of buckets, a power of two.
+	 */
+	private void rehash(int buckets)
+	{
+		bucketHead = new int[buckets];
+		bucketMask = buckets - 1;
+		Arrays.fill(bucketHead, -1);
+		for (int e = 0; e < entryCount; e++)
+		{
+			int bucket = hash(entryCellX[e], entryCellY[e]);
+			entryNext[e] = bucketHead[bucket];
+			bucketHead[bucket] = e;
+		}
+	}
+
+	/**
+	 * Removes every object from the grid, leaving the storage in place for the
+	 * next rebuild.
+	 */
+	public void clear()
+	{
+		Arrays.fill(bucketHead, -1);
+		entryCount = 0;
+	}
+
+	/**
+	 * Files the object under each cell its hitbox overlaps.
+	 * 
+	 * @param id
+	 *            The id of the object, returned by later queries.
+	 * @param left
+	 *            The left edge of the hitbox.
+	 * @param top
+	 *            The top edge of the hitbox.
+	 * @param width
+	 *            The width of the hitbox.
+	 * @param height
+	 *            The height of the hitbox.
+	 */
+	public void insert(int id, int left, int top, int width, int height)
+	{
+		int minX = cellOf(left), maxX = cellOf(left + width - 1);
+		int minY = cellOf(top), maxY = cellOf(top + height - 1);
+
+		for (int cy = minY; cy <= maxY; cy++)
+		{
+			for (int cx = minX; cx <= maxX; cx++)
+			{
+				addEntry(id, cx, cy, left, top, width, height);
+			}
+		}
+	}
+
+	/**
+	 * Takes the object out of every cell it was filed under. Used when an
+	 * object is destroyed partway through a frame, so that later queries in
+	 * the same frame do not find it again.
+	 * 
+	 * @param id
+	 *            The id of the object to remove.
+	 * @param left
+	 *            The left edge of the hitbox it was inserted with.
+	 * @param top
+	 *            The top edge of the hitbox it was inserted with.
+	 * @param width
+	 *            The width of the hitbox it was inserted with.
+	 * @param height
+	 *            The height of the hitbox it was inserted with.
+	 */
+	public void remove(int id, int left, int top, int width, int height)
+	{
+		int minX = cellOf(left), maxX = cellOf(left + width - 1);
+		int minY = cellOf(top), maxY = cellOf(top + height - 1);
+
+		for (int cy = minY; cy <= maxY; cy++)
+		{
+			for (int cx = minX; cx <= maxX; cx++)
+			{
+				int e = bucketHead[hash(cx, cy)];
+				while (e != -1)
+				{
+					if (entryId[e] == id)
+					{
+						entryId[e] = -1;
+					}
+					e = entryNext[e];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds an object whose hitbox intersects the passed rectangle. Only the
+	 * cells that the rectangle overlaps are searched. Intersection follows the
+	 * same rules as java.awt.Rectangle.intersects().
+	 * 
+	 * @param left
+	 *            The left edge of the rectangle, usually a shot's hitbox.
+	 * @param top
+	 *            The top edge of the rectangle.
+	 * @param width
+	 *            The width of the rectangle.
+	 * @param height
+	 *            The height of the rectangle.
+	 * @return The id of the first intersecting object found, or -1 if there
+	 *         is none.
+	 */
+	public int findIntersecting(int left, int top, int width, int height)
+	{
+		if (width <= 0 || height <= 0)
+		{
+			return -1;
+		}
+
+		int minX = cellOf(left), maxX = cellOf(left + width - 1);
+		int minY = cellOf(top), maxY = cellOf(top + height - 1);
+
+		for (int cy = minY; cy <= maxY; cy++)
+		{
+			for (int cx = minX; cx <= maxX; cx++)
+			{
+				int e = bucketHead[hash(cx, cy)];
+				while (e != -1)
+				{
+					// Different cells can share a bucket, so the cell is
+					// checked as well as the hitbox.
+					if (entryId[e] != -1 && entryCellX[e] == cx
+							&& entryCellY[e] == cy
+							&& entryWidth[e] > 0 && entryHeight[e] > 0
+							&& left < entryLeft[e] + entryWidth[e]
+							&& entryLeft[e] < left + width
+							&& top < entryTop[e] + entryHeight[e]
+							&& entryTop[e] < top + height)
+					{
+						return entryId[e];
+					}
+					e = entryNext[e];
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the object first hit by a rectangle moving in a straight line
+	 * over one step, from (left - dx, top - dy) to (left, top). This is a
+	 * swept test: an object the rectangle passed through partway is found
+	 * even if neither end overlaps it. The cells covered by the whole path
+	 * are searched, and each hitbox in them is checked with a slab test on
+	 * the time of entry. Overlap follows the same rules as
+	 * findIntersecting(), so with no movement the two agree.
+	 * 
+	 * @param left
+	 *            The left edge of the rectangle where the step ended.
+	 * @param top
+	 *            The top edge of the rectangle where the step ended.
+	 * @param width
+	 *            The width of the rectangle.
+	 * @param height
+	 *            The height of the rectangle.
+	 * @param dx
+	 *            How far the rectangle moved right during the step.
+	 * @param dy
+	 *            How far the rectangle moved down during the step.
+	 * @return The id of the object entered earliest along the path, or -1 if
+	 *         there is none.
+	 */
+	public int findSwept(int left, int top, int width, int height, int dx,
+			int dy)
+	{
+		if (dx == 0 && dy == 0)
+		{
+			return findIntersecting(left, top, width, height);
+		}
+		if (width <= 0 || height <= 0)
+		{
+			return -1;
+		}
+
+		int startLeft = left - dx, startTop = top - dy;
+		int pathLeft = Math.min(left, startLeft);
+		int pathTop = Math.min(top, startTop);
+		int minX = cellOf(pathLeft);
+		int maxX = cellOf(Math.max(left, startLeft) + width - 1);
+		int minY = cellOf(pathTop);
+		int maxY = cellOf(Math.max(top, startTop) + height - 1);
+
+		int hit = -1;
+		double hitTime = Double.MAX_VALUE;
+		for (int cy = minY; cy <= maxY; cy++)
+		{
+			for (int cx = minX; cx <= maxX; cx++)
+			{
+				int e = bucketHead[hash(cx, cy)];
+				while (e != -1)
+				{
+					if (entryId[e] != -1 && entryCellX[e] == cx
+							&& entryCellY[e] == cy
+							&& entryWidth[e] > 0 && entryHeight[e] > 0)
+					{
+						double entered = timeOfEntry(e, startLeft, startTop,
+								width, height, dx, dy);
+						if (entered < hitTime)
+						{
+							hitTime = entered;
+							hit = entryId[e];
+						}
+					}
+					e = entryNext[e];
+				}
+			}
+		}
+		return hit;
+	}
+
+	/**
+	 * Works out when a moving rectangle first overlaps an entry's hitbox. On
+	 * each axis the rectangle overlaps the hitbox during an open span of time;
+	 * it overlaps on both axes between the later start and the earlier end.
+	 * 
+	 * @param e
+	 *            The entry to test against.
+	 * @param left
+	 *            The left edge of the rectangle at the start of the step.
+	 * @param top
+	 *            The top edge of the rectangle at the start of the step.
+	 * @param width
+	 *            The width of the rectangle.
+	 * @param height
+	 *            The height of the rectangle.
+	 * @param dx
+	 *            How far the rectangle moves right during the step.
+	 * @param dy
+	 *            How far the rectangle moves down during the step.
+	 * @return The fraction of the step, from 0 to 1, at which they start to
+	 *         overlap, or Double.MAX_VALUE if they never do.
+	 */
+	private double timeOfEntry(int e, int left, int top, int width,
+			int height, int dx, int dy)
+	{
+		double enter = Double.NEGATIVE_INFINITY;
+		double exit = Double.POSITIVE_INFINITY;
+
+		int boxLeft = entryLeft[e], boxRight = boxLeft + entryWidth[e];
+		if (dx == 0)
+		{
+			if (left >= boxRight || boxLeft >= left + width)
+			{
+				return Double.MAX_VALUE;
+			}
+		} else
+		{
+			double a = (double) (boxLeft - (left + width)) / dx;
+			double b = (double) (boxRight - left) / dx;
+			enter = Math.min(a, b);
+			exit = Math.max(a, b);
+		}
+
+		int boxTop = entryTop[e], boxBottom = boxTop + entryHeight[e];
+		if (dy == 0)
+		{
+			if (top >= boxBottom || boxTop >= top + height)
+			{
+				return Double.MAX_VALUE;
+			}
+		} else
+		{
+			double a = (double) (boxTop - (top + height)) / dy;
+			double b = (double) (boxBottom - top) / dy;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+
+		if (enter < exit && enter < 1 && exit > 0)
+		{
+			return Math.max(enter, 0);
+		}
+		return Double.MAX_VALUE;
+	}
+
+	/**
+	 * Converts a pixel coordinate to a cell coordinate. floorDiv is used so
+	 * that objects just off the top or left of the screen land in negative
+	 * cells instead of sharing cell 0.
+	 * 
+	 * @param pixel
+	 *            The x or y pixel coordinate.
+	 * @return The cell coordinate.
+	 */
+	private int cellOf(int pixel)
+	{
+		return Math.floorDiv(pixel, cellSize);
+	}
+
+	/**
+	 * Hashes a cell coordinate into a bucket index.
+	 * 
+	 * @param cx
+	 *            The cell's x coordinate.
+	 * @param cy
+	 *            The cell's y coordinate.
+	 * @return The bucket index for that cell.
+	 */
+	private int hash(int cx, int cy)
+	{
+		return ((cx * 73856093) ^ (cy * 19349663)) & bucketMask;
+	}
+
+	/**
+	 * Links a new entry at the front of the cell's bucket, growing the entry
+	 * arrays and the bucket table if they are full.
+	 * 
+	 * @param id
+	 *            The id of the object being filed.
+	 * @param cx
+	 *            The cell's x coordinate.
+	 * @param cy
+	 *            The cell's y coordinate.
+	 * @param left
+	 *            The left edge of the object's hitbox.
+	 * @param top
+	 *            The top edge of the object's hitbox.
+	 * @param width
+	 *            The width of the object's hitbox.
+	 * @param height
+	 *            The height of the object's hitbox.
+	 */
+	private void addEntry(int id, int cx, int cy, int left, int top,
+			int width, int height)
+	{
+		if (entryCount == entryId.length)
+		{
+			int capacity = entryId.length * 2;
+			entryId = Arrays.copyOf(entryId, capacity);
+			entryCellX = Arrays.copyOf(entryCellX, capacity);
+			entryCellY = Arrays.copyOf(entryCellY, capacity);
+			entryNext = Arrays.copyOf(entryNext, capacity);
+			entryLeft = Arrays.copyOf(entryLeft, capacity);
+			entryTop = Arrays.copyOf(entryTop, capacity);
+			entryWidth = Arrays.copyOf(entryWidth, capacity);
+			entryHeight = Arrays.copyOf(entryHeight, capacity);
+			if (bucketsFor(capacity) > bucketHead.length)
+			{
+				rehash(bucketsFor(capacity));
+			}
+		}
+
+		int bucket = hash(cx, cy);
+		entryId[entryCount] = id;
+		entryCellX[entryCount] = cx;
+		entryCellY[entryCount] = cy;
+		entryLeft[entryCount] = left;
+		entryTop[entryCount] = top;
+		entryWidth[entryCount] = width;
+		entryHeight[entryCount] = height;
+		entryNext[entryCount] = bucketHead[bucket];
+		bucketHead[bucket] = entryCount;
+		entryCount++;
+	}
+}
@@ -0,0 +1,218 @@
+package GameObjects;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * SpriteCache holds pre-rendered images of ships and projectiles, so that
+ * drawing one is a single drawImage() instead of several fillOval(), fillRect()
+ * and setColor() calls. Ships get one image per heading and thruster frame,
+ * and projectiles one per pulse size, for each color and size used.
+ * 
+ * A sprite gives the same pixels as drawing the object shape by shape, except
+ * where a pulse ring runs off the edge of the frame. Java2D draws an oval the
+ * clip cuts through slightly differently, so drawn shape by shape the ring
+ * can have a pixel more or less on the outermost row or column of the frame.
+ * The sprite keeps the ring as it looks everywhere else on the screen.
+ * 
+ * The images are made compatible with the screen's graphics configuration so
+ * Java2D can keep them in video memory. If the configuration changes, for
+ * example when the window moves to another monitor, every image is thrown
+ * away and drawn again on demand.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class SpriteCache
+{
+	// The pulse sizes that get an image. Others are drawn shape by shape.
+	private static final int MIN_PULSE = -2, PULSE_MARGIN = 2;
+
+	/**
+	 * The images for one color and size of ship or projectile.
+	 */
+	private static class SpriteSet
+	{
+		final Color color;
+		final int size;
+		final Image[] images;
+
+		SpriteSet(Color color, int size, int count)
+		{
+			this.color = color;
+			this.size = size;
+			this.images = new Image[count];
+		}
+	}
+
+	private final ArrayList<SpriteSet> shipSets = new ArrayList<>(),
+			shotSets = new ArrayList<>();
+
+	// The configuration the images were made for.
+	private GraphicsConfiguration config;
+
+	/**
+	 * Checks the graphics configuration of what is about to be drawn to, and
+	 * throws the images away if they were made for a different one. Call this
+	 * once per frame before drawing.
+	 * 
+	 * @param pen
+	 *            The graphics object that will be drawn to.
+	 */
+	public void validate(Graphics2D pen)
+	{
+		GraphicsConfiguration current = pen.getDeviceConfiguration();
+		if (current != config)
+		{
+			shipSets.clear();
+			shotSets.clear();
+			config = current;
+		}
+	}
+
+	/**
+	 * Where the ship's center is inside its image.
+	 * 
+	 * @param size
+	 *            The size of the ship.
+	 * @return The x and y offset of the ship's center in its image.
+	 */
+	public static int shipOrigin(int size)
+	{
+		// The thruster reaches a full ship size plus 3 from the center.
+		return size + 4;
+	}
+
+	/**
+	 * Where the projectile's center is inside its image.
+	 * 
+	 * @param size
+	 *            The size of the projectile.
+	 * @return The x and y offset of the projectile's center in its image.
+	 */
+	public static int shotOrigin(int size)
+	{
+		// The pulse ring grows to about three times the shot's size.
+		return (size + maxPulse(size)) / 2 + 2;
+	}
+
+	/**
+	 * Gets the image of a ship, drawing it if it isn't cached yet.
+	 * 
+	 * @param color
+	 *            The color of the ship's body.
+	 * @param size
+	 *            The size of the ship.
+	 * @param direction
+	 *            Which way the ship is heading, from SpaceShip.direction().
+	 * @param thrustCounter
+	 *            The thruster animation frame, from 0 to 3.
+	 * @return The image, with the ship's center at shipOrigin(size).
+	 */
+	public Image ship(Color color, int size, int direction, int thrustCounter)
+	{
+		SpriteSet set = find(shipSets, color, size, 4 * 5);
+		int index = direction * 4 + thrustCounter;
+		if (set.images[index] == null)
+		{
+			int origin = shipOrigin(size);
+			BufferedImage image = createImage(origin * 2 + 1);
+			Graphics2D pen = image.createGraphics();
+			SpaceShip.paint(pen, origin, origin, size, direction,
+					thrustCounter, color);
+			pen.dispose();
+			set.images[index] = image;
+		}
+		return set.images[index];
+	}
+
+	/**
+	 * Gets the image of a projectile, drawing it if it isn't cached yet.
+	 * 
+	 * @param color
+	 *            The color of the shot.
+	 * @param size
+	 *            The size of the shot.
+	 * @param pulseSize
+	 *            How much bigger than the shot the pulse ring is.
+	 * @return The image, with the shot's center at shotOrigin(size), or null
+	 *         if that pulse size isn't cached.
+	 */
+	public Image shot(Color color, int size, int pulseSize)
+	{
+		if (pulseSize < MIN_PULSE || pulseSize > maxPulse(size))
+		{
+			return null;
+		}
+
+		SpriteSet set = find(shotSets, color, size,
+				maxPulse(size) - MIN_PULSE + 1);
+		int index = pulseSize - MIN_PULSE;
+		if (set.images[index] == null)
+		{
+			int origin = shotOrigin(size);
+			BufferedImage image = createImage(origin * 2 + 1);
+			Graphics2D pen = image.createGraphics();
+			Projectile.paint(pen, origin, origin, size, pulseSize, color);
+			pen.dispose();
+			set.images[index] = image;
+		}
+		return set.images[index];
+	}
+
+	/**
+	 * The largest pulse size that gets an image. The pulse turns around once
+	 * it passes twice the shot's size.
+	 * 
+	 * @param size
+	 *            The size of the shot.
+	 * @return The largest cached pulse size.
+	 */
+	private static int maxPulse(int size)
+	{
+		return size * 2 + PULSE_MARGIN;
+	}
+
+	/**
+	 * Finds the images for a color and size, adding an empty set if there
+	 * isn't one. Only a handful of colors are ever used, so a list is fine.
+	 */
+	private static SpriteSet find(ArrayList<SpriteSet> sets, Color color,
+			int size, int count)
+	{
+		for (int i = 0; i < sets.size(); i++)
+		{
+			SpriteSet set = sets.get(i);
+			if (set.size == size && set.color.equals(color))
+			{
+				return set;
+			}
+		}
+		SpriteSet set = new SpriteSet(color, size, count);
+		sets.add(set);
+		return set;
+	}
+
+	/**
+	 * Creates an empty, transparent, square image that suits the current
+	 * graphics configuration.
+	 * 
+	 * @param width
+	 *            The width and height of the image.
+	 * @return The image.
+	 */
+	private BufferedImage createImage(int width)
+	{
+		if (config != null)
+		{
+			return config.createCompatibleImage(width, width,
+					Transparency.BITMASK);
+		}
+		return new BufferedImage(width, width, BufferedImage.TYPE_INT_ARGB);
+	}
+}
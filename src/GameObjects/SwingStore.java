@@ -0,0 +1,33 @@
+package GameObjects;
+
+/**
+ * SwingStore is the component of entities that swing from side to side as
+ * they move, like the projectiles.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class SwingStore extends ComponentStore
+{
+	// How far each entity moves sideways on its next step. The direction it
+	// is swinging in is the SWING_RIGHT flag.
+	public int[] swing;
+
+	@Override
+	void allocate(int capacity)
+	{
+		swing = grow(swing, capacity);
+	}
+
+	@Override
+	void reset(int slot)
+	{
+		swing[slot] = 0;
+	}
+
+	@Override
+	void copy(int from, int to)
+	{
+		swing[to] = swing[from];
+	}
+}
@@ -0,0 +1,95 @@
+package Main;
+
+import GameObjects.EntityStore;
+import GameObjects.SpaceShip;
+
+/**
+ * Autopilot plays the game by itself, for long unattended runs. It holds the
+ * fire key the whole time, so the player shoots as fast as the rate of fire
+ * allows, and steers under the lowest enemy on the screen, since that is the
+ * one about to end the game. It aims where the enemy will be when a shot gets
+ * there, not where it is now. When a game is won or lost it presses the start
+ * key, so a new game starts right away.
+ * 
+ * It is plugged in like any other InputSource, and has to be told which game
+ * it is playing with watch() before the game starts polling it.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class Autopilot implements InputSource
+{
+	// The game being played.
+	private GameSimulation game;
+
+	/**
+	 * Tells the autopilot which game it is playing.
+	 * 
+	 * @param game
+	 *            The game that polls this autopilot.
+	 */
+	public void watch(GameSimulation game)
+	{
+		this.game = game;
+	}
+
+	/**
+	 * Works out the keys for the next tick from where the player and the
+	 * enemies are now.
+	 * 
+	 * @return The keys to hold down.
+	 */
+	@Override
+	public int poll()
+	{
+		if (game == null || !game.isRunning())
+		{
+			return GO;
+		}
+
+		EntityStore<SpaceShip> enemies = game.getEnemies();
+		int[] x = enemies.position.x, y = enemies.position.y,
+				xVel = enemies.position.xVel;
+		int playerX = game.getPlayer().getX();
+
+		// The lowest enemy on the screen, the closest one if there is a tie.
+		int target = -1, targetDistance = 0;
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			// Enemies still entering can't be hit yet.
+			if (y[i] < 0)
+			{
+				continue;
+			}
+
+			int distance = Math.abs(x[i] - playerX);
+			if (target == -1 || y[i] > y[target]
+					|| (y[i] == y[target] && distance < targetDistance))
+			{
+				target = i;
+				targetDistance = distance;
+			}
+		}
+		if (target == -1)
+		{
+			return FIRE;
+		}
+
+		// Lead the target by the time a shot takes to reach it.
+		int flight = (game.PLAYER_YAXIS_POS - y[target])
+				/ game.PROJECTILE_SPEED;
+		int aim = Math.max(0, Math.min(game.FRAME_SIZE,
+				x[target] + xVel[target] * flight));
+
+		// Close enough that the shot's swing still hits.
+		int slack = Math.max(1, game.SHIP_SIZE / 4);
+		if (aim < playerX - slack)
+		{
+			return LEFT | FIRE;
+		} else if (aim > playerX + slack)
+		{
+			return RIGHT | FIRE;
+		}
+		return FIRE;
+	}
+}
@@ -0,0 +1,207 @@
+package Main;
+
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * DamageRegion keeps track of which parts of the screen have to be cleared
+ * before a frame is drawn, so that only those parts are blanked instead of the
+ * whole frame. The screen is split into square tiles, and every box that is
+ * drawn marks the tiles it covers.
+ *
+ * The back buffer being drawn into doesn't hold the last frame but an older
+ * one, since the buffers take turns being shown. So the damage of a frame is
+ * every box drawn in it plus every box drawn in the frames the buffers can
+ * still be holding. After invalidate(), each buffer gets one full clear.
+ *
+ * @author Mason Dumaine
+ *
+ */
+public class DamageRegion
+{
+	// Tiles are 1 << TILE_SHIFT pixels square.
+	private static final int TILE_SHIFT = 5, TILE_SIZE = 1 << TILE_SHIFT;
+
+	// The size of the screen, in pixels and in tiles, and the number of longs
+	// holding one row of tiles.
+	private final int width, height, columns, rows, words;
+
+	// The tiles marked in the current frame and the ones before it, one bit
+	// per tile, and which of them is the current frame.
+	private final long[][] frames;
+	private int current = 0;
+
+	// The tiles to clear this frame, worked out by clear().
+	private final long[] damage;
+
+	// How many more frames have to be fully cleared.
+	private int fullFrames;
+
+	/**
+	 * Creates a damage region for a screen.
+	 *
+	 * @param width
+	 *            The width of the screen.
+	 * @param height
+	 *            The height of the screen.
+	 * @param buffers
+	 *            How many buffers take turns being shown, for example 2 for
+	 *            double buffering.
+	 */
+	public DamageRegion(int width, int height, int buffers)
+	{
+		this.width = width;
+		this.height = height;
+		columns = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+		rows = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+		words = (columns + 63) >> 6;
+		frames = new long[buffers + 1][rows * words];
+		damage = new long[rows * words];
+		fullFrames = buffers;
+	}
+
+	/**
+	 * Makes the next few frames clear the whole screen, for example when the
+	 * buffers have lost their contents or the screen is about to change
+	 * completely.
+	 */
+	public void invalidate()
+	{
+		fullFrames = frames.length - 1;
+	}
+
+	/**
+	 * Starts a new frame. Marks from the oldest frame are forgotten.
+	 */
+	public void begin()
+	{
+		current = (current + 1) % frames.length;
+		Arrays.fill(frames[current], 0);
+	}
+
+	/**
+	 * Marks a box that is drawn in the current frame.
+	 *
+	 * @param x
+	 *            The left edge of the box.
+	 * @param y
+	 *            The top edge of the box.
+	 * @param w
+	 *            The width of the box.
+	 * @param h
+	 *            The height of the box.
+	 */
+	public void add(int x, int y, int w, int h)
+	{
+		int left = Math.max(x, 0) >> TILE_SHIFT;
+		int top = Math.max(y, 0) >> TILE_SHIFT;
+		int right = Math.min(x + w - 1, width - 1) >> TILE_SHIFT;
+		int bottom = Math.min(y + h - 1, height - 1) >> TILE_SHIFT;
+
+		long[] tiles = frames[current];
+		for (int row = top; row <= bottom; row++)
+		{
+			int base = row * words;
+			for (int column = left; column <= right; column++)
+			{
+				tiles[base + (column >> 6)] |= 1L << column;
+			}
+		}
+	}
+
+	/**
+	 * Whether clear() is going to blank any part of a box this frame, so that
+	 * whatever was drawn there has to be drawn again. Only looks at the marks
+	 * made so far.
+	 *
+	 * @param x
+	 *            The left edge of the box.
+	 * @param y
+	 *            The top edge of the box.
+	 * @param w
+	 *            The width of the box.
+	 * @param h
+	 *            The height of the box.
+	 * @return True if a tile of the box is marked in a frame the back buffer
+	 *         might still be showing, or the whole screen is to be cleared.
+	 */
+	public boolean isMarked(int x, int y, int w, int h)
+	{
+		if (fullFrames > 0)
+		{
+			return true;
+		}
+
+		int left = Math.max(x, 0) >> TILE_SHIFT;
+		int top = Math.max(y, 0) >> TILE_SHIFT;
+		int right = Math.min(x + w - 1, width - 1) >> TILE_SHIFT;
+		int bottom = Math.min(y + h - 1, height - 1) >> TILE_SHIFT;
+
+		for (long[] tiles : frames)
+		{
+			for (int row = top; row <= bottom; row++)
+			{
+				int base = row * words;
+				for (int column = left; column <= right; column++)
+				{
+					if ((tiles[base + (column >> 6)] & (1L << column)) != 0)
+					{
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Clears the damaged part of the screen with the pen's current color:
+	 * everything marked in the current frame and the frames the back buffer
+	 * might still be showing, or the whole screen after invalidate(). Each row
+	 * of tiles is cleared in runs, with one fillRect() per run.
+	 *
+	 * @param pen
+	 *            The graphics object of the back buffer.
+	 */
+	public void clear(Graphics pen)
+	{
+		if (fullFrames > 0)
+		{
+			fullFrames--;
+			pen.fillRect(0, 0, width, height);
+			return;
+		}
+
+		Arrays.fill(damage, 0);
+		for (long[] tiles : frames)
+		{
+			for (int i = 0; i < damage.length; i++)
+			{
+				damage[i] |= tiles[i];
+			}
+		}
+
+		for (int row = 0; row < rows; row++)
+		{
+			int base = row * words;
+			int column = 0;
+			while (column < columns)
+			{
+				if ((damage[base + (column >> 6)] & (1L << column)) == 0)
+				{
+					column++;
+					continue;
+				}
+
+				int start = column;
+				while (column < columns
+						&& (damage[base + (column >> 6)] & (1L << column)) != 0)
+				{
+					column++;
+				}
+				pen.fillRect(start << TILE_SHIFT, row << TILE_SHIFT,
+						(column - start) << TILE_SHIFT, TILE_SIZE);
+			}
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package Main;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+import GameObjects.SpaceShip;
+import GameObjects.SpriteCache;
+
+/**
+ * DrawBatcher draws the ships and shots of a FrameSnapshot shape by shape, like
+ * SpaceShip.paint() and Projectile.paint(), but grouped so that each color is
+ * set only once per run of objects instead of two or three times per object.
+ * Every state change makes Java2D validate its pipeline again, so with
+ * thousands of objects the grouping saves far more than it costs.
+ * 
+ * The objects are drawn in runs in which none of them overlap. Ships are
+ * drawn as every thruster of the run, one color of animation frame at a time,
+ * and then every body, one color at a time. Shots are drawn as every core,
+ * grouped by color, and then every pulse ring in white. Since nothing in a
+ * run covers anything else in it, the order within the run doesn't matter,
+ * and the runs are drawn in order, so the frame comes out the same as drawing
+ * object by object. A run ends at the first object that would overlap one
+ * already in it, so where a wave is packed tight the runs are short and the
+ * drawing is closer to object by object.
+ * 
+ * Overlaps are found on a grid of cells as big as the largest object, which
+ * is hashed into a table of claims: an object covers at most two cells
+ * across and two down, and two objects can only overlap if they share a
+ * cell. Cells far apart can share a slot of the table, which only ends a run
+ * early.
+ * 
+ * The bodies are filled one fillRect() each rather than as one Path2D: a path
+ * of thousands of overlapping squares takes Java2D's general shape filler
+ * seconds per frame, while a run of fillRect() calls in one color is what the
+ * pipeline is fastest at. The arrays used for grouping are reused, so a frame
+ * doesn't allocate once they are big enough.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class DrawBatcher
+{
+	// Marks the objects already drawn while grouping them by color.
+	private boolean[] drawn = new boolean[64];
+
+	// For each slot of the hashed grid, the run that last claimed it. The
+	// length is a power of two.
+	private int[] claims = new int[64];
+
+	// The number of the current run, and the size of a cell of the grid.
+	private int run = 0, cell = 1;
+
+	/**
+	 * Draws every enemy ship in a snapshot.
+	 * 
+	 * @param pen
+	 *            What is being drawn to.
+	 * @param frame
+	 *            The snapshot holding the ships.
+	 * @param thrusters
+	 *            Whether to draw the thrusters, or just the bodies.
+	 */
+	public void drawShips(Graphics2D pen, FrameSnapshot frame,
+			boolean thrusters)
+	{
+		int[] x = frame.shipX, y = frame.shipY, size = frame.shipSize;
+		int count = frame.shipCount;
+
+		int largest = 0;
+		for (int i = 0; i < count; i++)
+		{
+			largest = Math.max(largest, size[i]);
+		}
+		startGrid(count, SpriteCache.shipOrigin(largest));
+
+		for (int first = 0; first < count;)
+		{
+			nextRun();
+			int end = first;
+			while (end < count && claim(x[end], y[end],
+					SpriteCache.shipOrigin(size[end])))
+			{
+				end++;
+			}
+			drawShips(pen, frame, thrusters, first, end);
+			first = end;
+		}
+	}
+
+	/**
+	 * Draws every projectile in a snapshot.
+	 * 
+	 * @param pen
+	 *            What is being drawn to.
+	 * @param frame
+	 *            The snapshot holding the shots.
+	 * @param pulses
+	 *            Whether to draw the pulse rings, or just the cores.
+	 */
+	public void drawShots(Graphics2D pen, FrameSnapshot frame, boolean pulses)
+	{
+		int[] x = frame.shotX, y = frame.shotY, size = frame.shotSize;
+		int count = frame.shotCount;
+
+		int largest = 0;
+		for (int i = 0; i < count; i++)
+		{
+			largest = Math.max(largest, size[i]);
+		}
+		startGrid(count, SpriteCache.shotOrigin(largest));
+
+		for (int first = 0; first < count;)
+		{
+			nextRun();
+			int end = first;
+			while (end < count && claim(x[end], y[end],
+					SpriteCache.shotOrigin(size[end])))
+			{
+				end++;
+			}
+			drawShots(pen, frame, pulses, first, end);
+			first = end;
+		}
+	}
+
+	/**
+	 * Draws a run of ships that don't overlap.
+	 */
+	private void drawShips(Graphics2D pen, FrameSnapshot frame,
+			boolean thrusters, int first, int end)
+	{
+		int[] x = frame.shipX, y = frame.shipY, size = frame.shipSize;
+		int[] direction = frame.shipDirection, thrust = frame.shipThrust;
+
+		// The thrusters, one animation frame (and so one color) at a time.
+		for (int frameIndex = 0; thrusters && frameIndex < 4; frameIndex++)
+		{
+			boolean colorSet = false;
+			for (int i = first; i < end; i++)
+			{
+				if (thrust[i] == frameIndex
+						&& direction[i] != SpaceShip.STILL)
+				{
+					if (!colorSet)
+					{
+						pen.setColor(SpaceShip.thrusterColor(frameIndex));
+						colorSet = true;
+					}
+					SpaceShip.paintThruster(pen, x[i], y[i], size[i],
+							direction[i], frameIndex);
+				}
+			}
+		}
+
+		// The bodies, one color at a time.
+		Color[] color = frame.shipColor;
+		boolean[] drawn = clearMarks(first, end);
+		for (int next = first; next < end; next++)
+		{
+			if (drawn[next])
+			{
+				continue;
+			}
+
+			Color bodyColor = color[next];
+			pen.setColor(bodyColor);
+			for (int i = next; i < end; i++)
+			{
+				if (!drawn[i] && color[i].equals(bodyColor))
+				{
+					drawn[i] = true;
+					int half = size[i] / 2;
+					pen.fillRect(x[i] - half, y[i] - half, size[i], size[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws a run of shots that don't overlap.
+	 */
+	private void drawShots(Graphics2D pen, FrameSnapshot frame,
+			boolean pulses, int first, int end)
+	{
+		int[] x = frame.shotX, y = frame.shotY, size = frame.shotSize;
+		int[] pulse = frame.shotPulse;
+
+		// The cores, one color at a time.
+		Color[] color = frame.shotColor;
+		boolean[] drawn = clearMarks(first, end);
+		for (int next = first; next < end; next++)
+		{
+			if (drawn[next])
+			{
+				continue;
+			}
+
+			Color coreColor = color[next];
+			pen.setColor(coreColor);
+			for (int i = next; i < end; i++)
+			{
+				if (!drawn[i] && color[i].equals(coreColor))
+				{
+					drawn[i] = true;
+					int half = size[i] / 2;
+					pen.fillOval(x[i] - half, y[i] - half, size[i], size[i]);
+				}
+			}
+		}
+
+		// The pulse rings, all in white.
+		if (!pulses)
+		{
+			return;
+		}
+		pen.setColor(Color.white);
+		for (int i = first; i < end; i++)
+		{
+			int sizeThisFrame = size[i] + pulse[i];
+			pen.drawOval(x[i] - (sizeThisFrame / 2), y[i] - (sizeThisFrame / 2),
+					sizeThisFrame, sizeThisFrame);
+		}
+	}
+
+	/**
+	 * Gets the grid ready for a new set of objects.
+	 * 
+	 * @param count
+	 *            How many objects there are. The table is grown to have a
+	 *            few slots for each.
+	 * @param origin
+	 *            How far the largest object reaches from its center.
+	 */
+	private void startGrid(int count, int origin)
+	{
+		cell = origin * 2 + 1;
+		if (claims.length < count * 4)
+		{
+			claims = new int[Integer.highestOneBit(count * 4) * 2];
+			run = 0;
+		}
+	}
+
+	/**
+	 * Starts a new run, which owns none of the grid.
+	 */
+	private void nextRun()
+	{
+		run++;
+		if (run == 0)
+		{
+			// The run numbers wrapped around, so old claims could match.
+			Arrays.fill(claims, 0);
+			run = 1;
+		}
+	}
+
+	/**
+	 * Adds an object to the current run if it doesn't overlap anything in
+	 * it. The first object of a run always fits.
+	 * 
+	 * @param x
+	 *            The x position of the object's center.
+	 * @param y
+	 *            The y position of the object's center.
+	 * @param origin
+	 *            How far the object reaches from its center.
+	 * @return Whether the object was added to the run.
+	 */
+	private boolean claim(int x, int y, int origin)
+	{
+		int left = Math.floorDiv(x - origin, cell),
+				right = Math.floorDiv(x + origin, cell),
+				top = Math.floorDiv(y - origin, cell),
+				bottom = Math.floorDiv(y + origin, cell);
+		for (int row = top; row <= bottom; row++)
+		{
+			for (int column = left; column <= right; column++)
+			{
+				if (claims[slot(column, row)] == run)
+				{
+					return false;
+				}
+			}
+		}
+		for (int row = top; row <= bottom; row++)
+		{
+			for (int column = left; column <= right; column++)
+			{
+				claims[slot(column, row)] = run;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Hashes a cell of the grid to its slot in the table.
+	 */
+	private int slot(int column, int row)
+	{
+		int hash = column * 0x9E3779B1 ^ row * 0x85EBCA6B;
+		return (hash ^ hash >>> 16) & (claims.length - 1);
+	}
+
+	/**
+	 * Gets the marks array, cleared for a run of objects and grown if it is
+	 * too small.
+	 */
+	private boolean[] clearMarks(int first, int end)
+	{
+		if (drawn.length < end)
+		{
+			drawn = new boolean[end * 2];
+		}
+		for (int i = first; i < end; i++)
+		{
+			drawn[i] = false;
+		}
+		return drawn;
+	}
+}
@@ -0,0 +1,174 @@
+package Main;
+
+import java.util.Arrays;
+
+/**
+ * EnemyPath is the snake path every enemy follows, worked out once per game
+ * so that moving an enemy is a table lookup on how many ticks old it is. The
+ * path starts at the spawn point off the top of the screen, goes left to the
+ * edge, then drops down a row, crosses the screen, drops again, and so on
+ * until it reaches the game over line.
+ * 
+ * The path is built by running the old per-enemy rules once, tick by tick,
+ * so enemies end up on exactly the same pixels as before. It is stored as
+ * straight segments rather than one entry per tick: each segment has a start
+ * point, a velocity and the age it lasts until, which keeps the table a few
+ * rows per screen height even for slow enemies on a big screen. An enemy
+ * remembers the segment it is on, so a normal tick never searches; jumping
+ * ahead in time uses segmentAt(), a binary search.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class EnemyPath
+{
+	// For each segment: the age it starts at, the age it lasts until, where
+	// the enemy is at the start age and how far it moves per tick. The last
+	// segment carries on past the game over line for as long as needed.
+	final int[] from, until, x, y, dx, dy;
+
+	// The number of segments.
+	final int segments;
+
+	// Where enemies spawn.
+	final int spawnX, spawnY;
+
+	// How many ticks an enemy takes to reach the game over line.
+	final int length;
+
+	// How many ticks apart enemies spawn, so that each one starts when the
+	// one before it is a ship's size from the edge of the screen.
+	final int spawnInterval;
+
+	/**
+	 * Works out the path for a game.
+	 * 
+	 * @param frameSize
+	 *            The size of the square screen.
+	 * @param shipSize
+	 *            The size of a ship.
+	 * @param speed
+	 *            How far an enemy moves each tick.
+	 * @param endY
+	 *            The height of the game over line, where the path can stop.
+	 */
+	public EnemyPath(int frameSize, int shipSize, int speed, int endY)
+	{
+		spawnX = shipSize * 4;
+		spawnY = -shipSize;
+
+		int[] from = new int[16], until = new int[16], x = new int[16],
+				y = new int[16], dx = new int[16], dy = new int[16];
+		int count = 0;
+
+		// The rules each enemy used to run every tick.
+		int posX = spawnX, posY = spawnY, xVel = -speed, yVel = 0, row = 0;
+		int firstAtEdge = -1, age = 0;
+		while (posY < endY)
+		{
+			age++;
+			if (posX > frameSize - shipSize || posX < shipSize)
+			{
+				yVel = speed;
+				xVel = 0;
+			}
+			if (posY >= row * shipSize * 2 + shipSize * 2)
+			{
+				yVel = 0;
+				xVel = (row % 2 == 1) ? -speed : speed;
+				row++;
+			}
+
+			// A new segment starts whenever the velocity changes.
+			if (count == 0 || xVel != dx[count - 1] || yVel != dy[count - 1])
+			{
+				if (count == from.length)
+				{
+					from = Arrays.copyOf(from, count * 2);
+					until = Arrays.copyOf(until, count * 2);
+					x = Arrays.copyOf(x, count * 2);
+					y = Arrays.copyOf(y, count * 2);
+					dx = Arrays.copyOf(dx, count * 2);
+					dy = Arrays.copyOf(dy, count * 2);
+				}
+				from[count] = age - 1;
+				x[count] = posX;
+				y[count] = posY;
+				dx[count] = xVel;
+				dy[count] = yVel;
+				count++;
+			}
+			posX += xVel;
+			posY += yVel;
+			until[count - 1] = age;
+
+			if (firstAtEdge == -1 && posX < shipSize)
+			{
+				firstAtEdge = age;
+			}
+		}
+		until[count - 1] = Integer.MAX_VALUE;
+
+		this.from = from;
+		this.until = until;
+		this.x = x;
+		this.y = y;
+		this.dx = dx;
+		this.dy = dy;
+		segments = count;
+		length = age;
+		spawnInterval = firstAtEdge;
+	}
+
+	/**
+	 * Finds the segment an enemy of some age is on.
+	 * 
+	 * @param age
+	 *            The number of ticks the enemy has moved, at least 1.
+	 * @return The segment.
+	 */
+	public int segmentAt(int age)
+	{
+		int low = 0, high = segments - 1;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (until[mid] < age)
+			{
+				low = mid + 1;
+			} else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * The x position of an enemy on a segment.
+	 * 
+	 * @param segment
+	 *            The segment the enemy is on.
+	 * @param age
+	 *            The number of ticks the enemy has moved.
+	 * @return Its x position.
+	 */
+	public int xAt(int segment, int age)
+	{
+		return x[segment] + dx[segment] * (age - from[segment]);
+	}
+
+	/**
+	 * The y position of an enemy on a segment.
+	 * 
+	 * @param segment
+	 *            The segment the enemy is on.
+	 * @param age
+	 *            The number of ticks the enemy has moved.
+	 * @return Its y position.
+	 */
+	public int yAt(int segment, int age)
+	{
+		return y[segment] + dy[segment] * (age - from[segment]);
+	}
+}
@@ -4,6 +4,10 @@ package Main;
  * The main driver for the program. It creates a new game object and then calls
  * its gameLoop() method to begin the game.
  * 
+ * Usage: java Main.FinalProject [-preset name] [-config file] [setting=value]
+ * 
+ * See GameConfig for the settings and presets.
+ * 
  * @author Mason Dumaine
  *
  */
@@ -11,7 +15,18 @@ public class FinalProject
 {
 	public static void main(String[] args)
 	{
-		SpaceInvaders game = new SpaceInvaders();
+		GameConfig config;
+		try
+		{
+			config = GameConfig.load(args);
+		} catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		SpaceInvaders game = new SpaceInvaders(config);
 		game.gameLoop();
 	}
 }
@@ -0,0 +1,191 @@
+package Main;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import GameObjects.SpriteCache;
+
+/**
+ * FrameCapture saves the game as a sequence of PNG images, one per tick,
+ * named after the tick, for comparing runs and attaching to bug reports.
+ * Encoding a PNG takes far longer than a tick, so none of it happens on the
+ * game loop: offer() copies the game into a FrameSnapshot from a fixed pool
+ * and queues it, and background encoder threads draw each snapshot into
+ * their own image and write it out.
+ * 
+ * The window's back buffer can't be read back cheaply, so the snapshot is
+ * copied instead of the pixels, and the encoders draw it again the same way
+ * the window does. When the encoders fall behind, the pool runs dry and
+ * offer() drops the frame instead of waiting, so capturing never slows the
+ * game down. Dropped ticks show up as gaps in the file numbers.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class FrameCapture
+{
+	// Handed to an encoder to make it stop.
+	private static final FrameSnapshot STOP = new FrameSnapshot(1);
+
+	// The snapshots not in use, and the ones waiting to be encoded. Every
+	// snapshot is always in one of them or with an encoder, so neither queue
+	// can fill up.
+	private final ArrayBlockingQueue<FrameSnapshot> free, pending;
+
+	private final Thread[] encoders;
+	private final Path directory;
+
+	// How many frames were written, and how many were dropped or failed.
+	private final AtomicLong written = new AtomicLong(),
+			dropped = new AtomicLong();
+
+	/**
+	 * Starts the encoder threads.
+	 * 
+	 * @param game
+	 *            The game being captured.
+	 * @param directory
+	 *            Where the images go. It is created if it doesn't exist.
+	 * @param threads
+	 *            How many encoder threads to run.
+	 * @param buffered
+	 *            How many frames can wait to be encoded before frames are
+	 *            dropped.
+	 * @param sprites
+	 *            Whether to draw with pre-rendered sprites, like the window.
+	 * @throws IOException
+	 *             If the directory can't be created.
+	 */
+	public FrameCapture(GameSimulation game, Path directory, int threads,
+			int buffered, boolean sprites) throws IOException
+	{
+		Files.createDirectories(directory);
+		this.directory = directory;
+
+		free = new ArrayBlockingQueue<>(buffered);
+		pending = new ArrayBlockingQueue<>(buffered + threads);
+		for (int i = 0; i < buffered; i++)
+		{
+			free.add(new FrameSnapshot(game.MAX_LIVE_ENEMIES));
+		}
+
+		encoders = new Thread[threads];
+		for (int i = 0; i < threads; i++)
+		{
+			GameRenderer renderer = new GameRenderer(game);
+			if (sprites)
+			{
+				renderer.setSprites(new SpriteCache());
+			} else
+			{
+				renderer.setBatcher(new DrawBatcher());
+			}
+			BufferedImage image = new BufferedImage(game.FRAME_SIZE,
+					game.FRAME_SIZE, BufferedImage.TYPE_INT_RGB);
+
+			encoders[i] = new Thread(() -> encode(renderer, image),
+					"capture-" + i);
+			encoders[i].setDaemon(true);
+			encoders[i].start();
+		}
+	}
+
+	/**
+	 * Queues the current state of the game to be saved, or drops it if the
+	 * encoders are too far behind. Never waits.
+	 * 
+	 * @param game
+	 *            The game to capture.
+	 * @return Whether the frame was queued.
+	 */
+	public boolean offer(GameSimulation game)
+	{
+		FrameSnapshot frame = free.poll();
+		if (frame == null)
+		{
+			dropped.incrementAndGet();
+			return false;
+		}
+		frame.capture(game);
+		pending.add(frame);
+		return true;
+	}
+
+	/**
+	 * Lets the encoders finish the frames already queued, stops them, and
+	 * prints how many frames were saved.
+	 */
+	public void close()
+	{
+		for (int i = 0; i < encoders.length; i++)
+		{
+			pending.add(STOP);
+		}
+		try
+		{
+			for (Thread encoder : encoders)
+			{
+				encoder.join();
+			}
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		System.out.printf("Captured %d frames to %s, dropped %d%n",
+				written.get(), directory, dropped.get());
+	}
+
+	/**
+	 * The loop of an encoder thread: draws each queued snapshot, gives the
+	 * snapshot back to the pool and writes the image.
+	 * 
+	 * @param renderer
+	 *            This thread's renderer.
+	 * @param image
+	 *            This thread's image to draw into.
+	 */
+	private void encode(GameRenderer renderer, BufferedImage image)
+	{
+		Graphics2D pen = image.createGraphics();
+		try
+		{
+			while (true)
+			{
+				FrameSnapshot frame = pending.take();
+				if (frame == STOP)
+				{
+					break;
+				}
+
+				renderer.drawFrame(pen, frame);
+				long tick = frame.tick;
+				free.add(frame);
+
+				try
+				{
+					ImageIO.write(image, "png", directory.resolve(
+							String.format("frame-%08d.png", tick)).toFile());
+					written.incrementAndGet();
+				} catch (IOException e)
+				{
+					System.err.println("Can't write frame " + tick + ": "
+							+ e.getMessage());
+					dropped.incrementAndGet();
+				}
+			}
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} finally
+		{
+			pen.dispose();
+		}
+	}
+}
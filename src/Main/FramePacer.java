@@ -0,0 +1,53 @@
+package Main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FramePacer waits until a deadline measured with System.nanoTime(). Most of
+ * the wait is spent parked, which frees the CPU, and the last stretch is spent
+ * spinning, since parking (like Thread.sleep()) can wake up late by a good
+ * fraction of a millisecond.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class FramePacer
+{
+	// How close to the deadline we stop parking and start spinning.
+	private final long spinNanos;
+
+	/**
+	 * Creates a pacer.
+	 * 
+	 * @param spinNanos
+	 *            How many nanoseconds before the deadline to switch from
+	 *            parking to spinning.
+	 */
+	public FramePacer(long spinNanos)
+	{
+		this.spinNanos = spinNanos;
+	}
+
+	/**
+	 * Returns once System.nanoTime() has reached the deadline. Returns right
+	 * away if the deadline has already passed.
+	 * 
+	 * @param deadline
+	 *            The System.nanoTime() value to wait for.
+	 */
+	public void waitUntil(long deadline)
+	{
+		long remaining = deadline - System.nanoTime();
+		while (remaining > 0)
+		{
+			if (remaining > spinNanos)
+			{
+				LockSupport.parkNanos(remaining - spinNanos);
+			} else
+			{
+				Thread.onSpinWait();
+			}
+			remaining = deadline - System.nanoTime();
+		}
+	}
+}
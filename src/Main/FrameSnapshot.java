@@ -0,0 +1,128 @@
+package Main;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import GameObjects.SpaceShip;
+
+/**
+ * FrameSnapshot is a compact copy of everything needed to draw one frame:
+ * where every visible ship and shot is, their animation frames, the kill
+ * count and which screen the game is on. The simulation fills a snapshot after
+ * each tick and hands it to the render thread through a SnapshotExchanger;
+ * from then on nobody writes to it until the exchanger gives it back, so the
+ * render thread can read it without any locking.
+ * 
+ * The arrays are reused from frame to frame and only grow, so taking a
+ * snapshot does not allocate once the game has warmed up.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class FrameSnapshot
+{
+	// The tick the snapshot was taken after.
+	long tick;
+
+	// Which screen is showing, and the score.
+	boolean showingStart, running, over, playerWon;
+	int killCounter;
+
+	// The visible enemy ships. direction is from SpaceShip.direction().
+	int shipCount;
+	int[] shipX, shipY, shipSize, shipDirection, shipThrust;
+	Color[] shipColor;
+
+	// The shots. pulse is how much bigger than the shot its ring is.
+	int shotCount;
+	int[] shotX, shotY, shotSize, shotPulse;
+	Color[] shotColor;
+
+	// The player's ship.
+	boolean playerVisible;
+	int playerX, playerY, playerSize, playerDirection, playerThrust;
+	Color playerColor;
+
+	/**
+	 * Creates an empty snapshot.
+	 * 
+	 * @param capacity
+	 *            How many ships and shots to make room for up front.
+	 */
+	public FrameSnapshot(int capacity)
+	{
+		growShips(Math.max(1, capacity));
+		growShots(Math.max(1, capacity));
+	}
+
+	/**
+	 * Copies the current state of the game into this snapshot.
+	 * 
+	 * @param game
+	 *            The game to copy.
+	 */
+	public void capture(GameSimulation game)
+	{
+		tick = game.getTickCount();
+		showingStart = game.isShowingStart();
+		running = game.isRunning();
+		over = game.isOver();
+		playerWon = game.hasPlayerWon();
+		killCounter = game.getKillCounter();
+
+		RenderSystem.captureShips(game.getEnemies(), this);
+		RenderSystem.captureShots(game.getShots(), this);
+
+		SpaceShip player = game.getPlayer();
+		playerVisible = player.getIsVisible();
+		playerX = player.getX();
+		playerY = player.getY();
+		playerSize = player.getSize();
+		playerDirection = SpaceShip.direction(player.getXVel(),
+				player.getYVel());
+		playerThrust = player.getThrustCounter();
+		playerColor = player.getColor();
+	}
+
+	/**
+	 * Grows the ship arrays, keeping what is in them.
+	 * 
+	 * @param capacity
+	 *            The new capacity.
+	 */
+	void growShips(int capacity)
+	{
+		shipX = grow(shipX, capacity);
+		shipY = grow(shipY, capacity);
+		shipSize = grow(shipSize, capacity);
+		shipDirection = grow(shipDirection, capacity);
+		shipThrust = grow(shipThrust, capacity);
+		shipColor = shipColor == null ? new Color[capacity]
+				: Arrays.copyOf(shipColor, capacity);
+	}
+
+	/**
+	 * Grows the shot arrays, keeping what is in them.
+	 * 
+	 * @param capacity
+	 *            The new capacity.
+	 */
+	void growShots(int capacity)
+	{
+		shotX = grow(shotX, capacity);
+		shotY = grow(shotY, capacity);
+		shotSize = grow(shotSize, capacity);
+		shotPulse = grow(shotPulse, capacity);
+		shotColor = shotColor == null ? new Color[capacity]
+				: Arrays.copyOf(shotColor, capacity);
+	}
+
+	/**
+	 * Grows one array, or creates it if it is null.
+	 */
+	private static int[] grow(int[] array, int capacity)
+	{
+		return array == null ? new int[capacity]
+				: Arrays.copyOf(array, capacity);
+	}
+}
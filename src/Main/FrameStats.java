@@ -0,0 +1,159 @@
+package Main;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * FrameStats collects how long each phase of a frame takes, in latency
+ * histograms, and once a second turns them into a summary: frames per second
+ * and the p50/p99/max time of every phase. The summary is shown by the
+ * in-game overlay and, if a file was given, appended to that file.
+ * 
+ * Nothing is timed unless a FrameStats has been handed to the game and the
+ * renderer, so when the stats are off the only cost is a null check. The
+ * simulation and render threads both record into the same stats, so recording
+ * is synchronized; the lock is only taken while the stats are on.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class FrameStats
+{
+	// The phases of a frame.
+	public static final int COLLISION = 0, UPDATE = 1, WINNER = 2, TICK = 3,
+			DRAW = 4, SHOW = 5, SLEEP = 6, FRAME = 7;
+
+	private static final String[] PHASE_NAMES = { "checkForEnemyHits",
+			"updateGame", "searchForWinner", "tick", "drawGame", "show",
+			"sleep", "frame" };
+
+	// How often the summary is rebuilt and written out.
+	private static final long WINDOW_NANOS = 1000000000L;
+
+	private final LatencyHistogram[] phases =
+			new LatencyHistogram[PHASE_NAMES.length];
+
+	// The frames drawn in the current window, and when it started.
+	private int frames = 0;
+	private long windowStart = System.nanoTime();
+
+	// The summary of the last full window, one line per phase plus FPS.
+	private volatile String[] summary = { "FPS: -" };
+
+	// Where the summaries are written, or null.
+	private PrintWriter dump;
+
+	/**
+	 * Creates an empty set of stats.
+	 * 
+	 * @param dumpFile
+	 *            The file each summary is appended to, or null to only show
+	 *            them in the overlay.
+	 */
+	public FrameStats(String dumpFile)
+	{
+		for (int i = 0; i < phases.length; i++)
+		{
+			phases[i] = new LatencyHistogram();
+		}
+
+		if (dumpFile != null)
+		{
+			try
+			{
+				dump = new PrintWriter(new FileWriter(dumpFile, true), true);
+			} catch (IOException e)
+			{
+				System.err.println("Can't write frame stats to " + dumpFile
+						+ ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Records how long one phase took.
+	 * 
+	 * @param phase
+	 *            The phase, for example FrameStats.DRAW.
+	 * @param nanos
+	 *            How long it took.
+	 */
+	public synchronized void record(int phase, long nanos)
+	{
+		phases[phase].record(nanos);
+	}
+
+	/**
+	 * Marks the end of a drawn frame. Once a second has passed since the
+	 * window started, the summary is rebuilt, written out and the histograms
+	 * are cleared.
+	 * 
+	 * @param now
+	 *            The current System.nanoTime().
+	 */
+	public synchronized void frameDone(long now)
+	{
+		frames++;
+		long elapsed = now - windowStart;
+		if (elapsed >= WINDOW_NANOS)
+		{
+			summarize(elapsed);
+			windowStart = now;
+			frames = 0;
+		}
+	}
+
+	/**
+	 * Gets the summary of the last full second.
+	 * 
+	 * @return The lines of the summary.
+	 */
+	public String[] getSummary()
+	{
+		return summary;
+	}
+
+	/**
+	 * Closes the dump file, if there is one.
+	 */
+	public synchronized void close()
+	{
+		if (dump != null)
+		{
+			dump.close();
+			dump = null;
+		}
+	}
+
+	/**
+	 * Builds the summary from the histograms and writes it to the dump file.
+	 * 
+	 * @param elapsed
+	 *            How long the window lasted.
+	 */
+	private void summarize(long elapsed)
+	{
+		String[] lines = new String[phases.length + 1];
+		lines[0] = String.format("FPS: %.1f", frames * 1e9 / elapsed);
+		for (int i = 0; i < phases.length; i++)
+		{
+			LatencyHistogram h = phases[i];
+			lines[i + 1] = String.format("%-17s %7.3f %7.3f %7.3f ms",
+					PHASE_NAMES[i], h.percentile(0.5) / 1e6,
+					h.percentile(0.99) / 1e6, h.getMax() / 1e6);
+			h.reset();
+		}
+		summary = lines;
+
+		if (dump != null)
+		{
+			dump.println(System.currentTimeMillis() + " " + lines[0]
+					+ "  (p50 p99 max)");
+			for (int i = 1; i < lines.length; i++)
+			{
+				dump.println("    " + lines[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,348 @@
+package Main;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * GameConfig holds the settings that decide how big the game is and how fast
+ * it runs: the size of the screen, the length of a tick, the number of
+ * enemies, the speeds and sizes of everything, and the rate of fire. The
+ * defaults are the original game. The enemies come as a single wave of
+ * totalEnemies, unless the waves setting names a WaveSpec file.
+ * 
+ * Settings can be given as properties, in a file or on the command line, and
+ * named presets bundle settings for load testing. Later sources win: a preset
+ * first, then the properties file, then single settings on the command line.
+ * Every setting is checked when the config is made, so a bad one, or one with
+ * a misspelled name, is reported up front instead of breaking the game
+ * halfway through or being quietly ignored.
+ * 
+ * Usage: [-preset name] [-config file] [setting=value ...]
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class GameConfig
+{
+	// The named presets, as name followed by its settings.
+	private static final String[][] PRESETS = {
+			{ "classic" },
+			// 10k small enemies pouring in while the player fires every tick.
+			{ "stress", "totalEnemies=10000", "shipSize=8", "enemySpeed=4",
+					"rateOfFire=10", "autoFire=true" },
+			// 100k tiny enemies, moved on the fork/join pool. Moving them in
+			// parallel starts at 8192 in play, so the screen is big enough
+			// for the path to hold twice that, and the player fires slowly
+			// enough not to keep the wave below it.
+			{ "huge", "totalEnemies=100000", "frameSize=1500", "shipSize=4",
+					"enemySpeed=4", "rateOfFire=100", "autoFire=true",
+					"parallel=true" } };
+
+	// Every setting a config reads. Anything else is a mistake, most likely
+	// a misspelled name.
+	private static final String[] SETTINGS = { "frameSize", "tickMillis",
+			"totalEnemies", "playerSpeed", "enemySpeed", "projectileSpeed",
+			"shipSize", "shotSize", "rateOfFire", "autoFire", "parallel",
+			"waves" };
+
+	// The size of the square screen.
+	public final int frameSize;
+
+	// The number of ms between ticks.
+	public final int tickMillis;
+
+	// The total size of the wave of enemies.
+	public final int totalEnemies;
+
+	// The waves of enemies, read from the file named by the waves setting or
+	// else a single wave of totalEnemies.
+	public final WaveSpec waves;
+
+	// How far the player, enemies and shots move each tick.
+	public final int playerSpeed, enemySpeed, projectileSpeed;
+
+	// The physical size of all ships and of projectiles.
+	public final int shipSize, shotSize;
+
+	// Time between shots in milliseconds.
+	public final int rateOfFire;
+
+	// Whether the player fires without holding the fire key.
+	public final boolean autoFire;
+
+	// Whether very large waves are moved on the fork/join pool.
+	public final boolean parallel;
+
+	// The waves file, or null for a single wave.
+	private final String wavesFile;
+
+	/**
+	 * Creates the original game's config.
+	 */
+	public GameConfig()
+	{
+		this(new Properties());
+	}
+
+	/**
+	 * Creates a config from properties. Anything left out keeps its default;
+	 * the speeds default to the original fractions of the frame size.
+	 * 
+	 * @param settings
+	 *            The settings, by name, for example "totalEnemies".
+	 * @throws IllegalArgumentException
+	 *             If a setting is unknown, isn't a number or true or false,
+	 *             or is out of range, or the waves file is bad.
+	 */
+	public GameConfig(Properties settings)
+	{
+		checkNames(settings);
+
+		frameSize = getInt(settings, "frameSize", 1000);
+		tickMillis = getInt(settings, "tickMillis", 10);
+		totalEnemies = getInt(settings, "totalEnemies", 200);
+		playerSpeed = getInt(settings, "playerSpeed", frameSize / 250);
+		enemySpeed = getInt(settings, "enemySpeed", frameSize / 500);
+		projectileSpeed = getInt(settings, "projectileSpeed", frameSize / 200);
+		shipSize = getInt(settings, "shipSize", 25);
+		shotSize = getInt(settings, "shotSize", 8);
+		rateOfFire = getInt(settings, "rateOfFire", 650);
+		autoFire = getBoolean(settings, "autoFire", false);
+		parallel = getBoolean(settings, "parallel", false);
+
+		check("tickMillis", tickMillis, 1, 1000);
+		check("totalEnemies", totalEnemies, 1, 10000000);
+		check("shipSize", shipSize, 2, 1000);
+		check("shotSize", shotSize, 1, 1000);
+		// There has to be room for the enemies' first rows and the game over
+		// line below them.
+		check("frameSize", frameSize, shipSize * 8, 16384);
+		check("playerSpeed", playerSpeed, 1, frameSize);
+		// Faster enemies could step past the edge checks of moveEnemies().
+		check("enemySpeed", enemySpeed, 1, shipSize);
+		check("projectileSpeed", projectileSpeed, 1, frameSize);
+		check("rateOfFire", rateOfFire, 0, Integer.MAX_VALUE);
+
+		wavesFile = settings.getProperty("waves");
+		waves = wavesFile == null ? WaveSpec.single(totalEnemies)
+				: WaveSpec.load(wavesFile);
+	}
+
+	/**
+	 * Lists every setting of this config, one name=value per line, with the
+	 * defaults filled in. Configs with the same settings play the same game,
+	 * as long as the waves file hasn't changed, and parse() turns the list
+	 * back into a config.
+	 * 
+	 * @return The settings.
+	 */
+	public String getSettings()
+	{
+		StringBuilder list = new StringBuilder();
+		// The whole number settings, in the order of SETTINGS.
+		int[] values = { frameSize, tickMillis, totalEnemies, playerSpeed,
+				enemySpeed, projectileSpeed, shipSize, shotSize, rateOfFire };
+		for (int i = 0; i < values.length; i++)
+		{
+			list.append(SETTINGS[i]).append('=').append(values[i])
+					.append('\n');
+		}
+		list.append("autoFire=").append(autoFire).append('\n');
+		list.append("parallel=").append(parallel).append('\n');
+		if (wavesFile != null)
+		{
+			list.append("waves=").append(wavesFile).append('\n');
+		}
+		return list.toString();
+	}
+
+	/**
+	 * Makes a config from the settings listed by getSettings().
+	 * 
+	 * @param list
+	 *            The settings, one name=value per line.
+	 * @return The config.
+	 * @throws IllegalArgumentException
+	 *             If a line or setting is bad.
+	 */
+	public static GameConfig parse(String list)
+	{
+		Properties settings = new Properties();
+		for (String line : list.split("\n"))
+		{
+			int split = line.indexOf('=');
+			if (split <= 0)
+			{
+				throw new IllegalArgumentException("Not a setting: " + line);
+			}
+			settings.setProperty(line.substring(0, split),
+					line.substring(split + 1));
+		}
+		return new GameConfig(settings);
+	}
+
+	/**
+	 * Builds a config from command line arguments, on top of the
+	 * invaders.preset and invaders.config system properties.
+	 * 
+	 * @param args
+	 *            The arguments: -preset name, -config file and setting=value.
+	 * @return The config.
+	 * @throws IllegalArgumentException
+	 *             If an argument, preset, file or setting is bad.
+	 */
+	public static GameConfig load(String[] args)
+	{
+		Properties settings = new Properties();
+		String preset = System.getProperty("invaders.preset"),
+				file = System.getProperty("invaders.config");
+		Properties overrides = new Properties();
+
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-preset") && i + 1 < args.length)
+			{
+				preset = args[++i];
+			} else if (args[i].equals("-config") && i + 1 < args.length)
+			{
+				file = args[++i];
+			} else if (args[i].indexOf('=') > 0)
+			{
+				int split = args[i].indexOf('=');
+				overrides.setProperty(args[i].substring(0, split),
+						args[i].substring(split + 1));
+			} else
+			{
+				throw new IllegalArgumentException("Unknown argument: "
+						+ args[i]);
+			}
+		}
+
+		if (preset != null)
+		{
+			addPreset(settings, preset);
+		}
+		if (file != null)
+		{
+			try (Reader in = new FileReader(file))
+			{
+				settings.load(in);
+			} catch (IOException e)
+			{
+				throw new IllegalArgumentException("Can't read config " + file
+						+ ": " + e.getMessage());
+			}
+		}
+		settings.putAll(overrides);
+		return new GameConfig(settings);
+	}
+
+	/**
+	 * Adds the settings of a named preset.
+	 * 
+	 * @param settings
+	 *            Where the settings go.
+	 * @param name
+	 *            The name of the preset.
+	 * @throws IllegalArgumentException
+	 *             If there is no such preset.
+	 */
+	private static void addPreset(Properties settings, String name)
+	{
+		for (String[] preset : PRESETS)
+		{
+			if (preset[0].equals(name))
+			{
+				for (int i = 1; i < preset.length; i++)
+				{
+					int split = preset[i].indexOf('=');
+					settings.setProperty(preset[i].substring(0, split),
+							preset[i].substring(split + 1));
+				}
+				return;
+			}
+		}
+
+		StringBuilder names = new StringBuilder();
+		for (String[] preset : PRESETS)
+		{
+			names.append(' ').append(preset[0]);
+		}
+		throw new IllegalArgumentException("Unknown preset " + name
+				+ ", expected one of:" + names);
+	}
+
+	/**
+	 * Reads a whole number setting.
+	 */
+	private static int getInt(Properties settings, String name, int fallback)
+	{
+		String value = settings.getProperty(name);
+		if (value == null)
+		{
+			return fallback;
+		}
+		try
+		{
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException(name
+					+ " must be a whole number, not " + value);
+		}
+	}
+
+	/**
+	 * Reads a setting that has to be true or false.
+	 */
+	private static boolean getBoolean(Properties settings, String name,
+			boolean fallback)
+	{
+		String value = settings.getProperty(name);
+		if (value == null)
+		{
+			return fallback;
+		}
+		switch (value.trim())
+		{
+		case "true":
+			return true;
+		case "false":
+			return false;
+		default:
+			throw new IllegalArgumentException(name
+					+ " must be true or false, not " + value);
+		}
+	}
+
+	/**
+	 * Checks that every setting is one a config reads.
+	 */
+	private static void checkNames(Properties settings)
+	{
+		for (String name : settings.stringPropertyNames())
+		{
+			if (!Arrays.asList(SETTINGS).contains(name))
+			{
+				throw new IllegalArgumentException("Unknown setting " + name
+						+ ", expected one of: "
+						+ String.join(" ", SETTINGS));
+			}
+		}
+	}
+
+	/**
+	 * Checks that a setting is in range.
+	 */
+	private static void check(String name, int value, int min, int max)
+	{
+		if (value < min || value > max)
+		{
+			throw new IllegalArgumentException(name + " must be between "
+					+ min + " and " + max + ", not " + value);
+		}
+	}
+}
@@ -0,0 +1,572 @@
+package Main;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+
+import GameObjects.Projectile;
+import GameObjects.SpaceShip;
+import GameObjects.SpriteCache;
+
+/**
+ * GameRenderer draws a GameSimulation: the start and end screens, the kill
+ * counter, the game over line and every game object. It only needs a Graphics
+ * object to draw to, so it can draw into the window's back buffer or into an
+ * off-screen image.
+ * 
+ * Everything is drawn from a FrameSnapshot of the game rather than from the
+ * game itself, so the renderer can run on its own thread while the next tick
+ * is being simulated.
+ * 
+ * With a DamageRegion set, only the parts of the frame that something was or
+ * is drawn over are blanked before drawing, instead of the whole frame, and
+ * the text along the top and the game over line are only drawn again once
+ * they have been blanked. The start and end screens are always drawn in full.
+ * 
+ * The shots' pulse rings and the ships' thrusters are only decoration, and
+ * can be left out with setDetail() when frames take too long to draw.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class GameRenderer
+{
+	// The font used for the text elements of the game.
+	private Font gameFont = new Font("TimesRoman", Font.PLAIN, 32);
+
+	// The smaller font used for the stats overlay.
+	private Font statsFont = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+	// The frame stats shown in the overlay, or null to hide it. Set by the
+	// game loop and read by the render thread.
+	private volatile FrameStats stats;
+
+	// Pre-rendered images of the game objects, or null to draw them shape by
+	// shape.
+	private SpriteCache sprites;
+
+	// The metrics of the two fonts, looked up on the first frame.
+	private FontMetrics gameMetrics, statsMetrics;
+
+	// The kill counter text and the counts shown in the stats overlay. They
+	// are written into reused char arrays, and only when the numbers change,
+	// so that drawing a frame never builds a string.
+	private final char[] killCounterChars = new char[32],
+			countsChars = new char[64];
+	private int killCounterLength, killCounterWidth, countsLength,
+			shownKills = -1, shownShips = -1, shownShots = -1;
+
+	// The stats the overlay was last drawn from, its summary lines then, and
+	// how tall the text along the top was, to tell when the text changes.
+	private FrameStats shownStats;
+	private String[] shownSummary;
+	private int shownTextHeight;
+
+	// Whether the game over line is on the screen, and whether it and the
+	// text along the top have to be drawn this frame because their tiles
+	// were blanked.
+	private boolean lineShown, drawLine = true, drawText = true;
+
+	// Draws the objects shape by shape grouped by color, or null to draw them
+	// one at a time. Only used when there are no sprites.
+	private DrawBatcher batcher;
+
+	// Tracks which parts of the frame need blanking, or null to blank all of
+	// it every frame.
+	private DamageRegion damage;
+
+	// Whether to draw the shots' pulse rings and the ships' thrusters.
+	private boolean pulses = true, thrusters = true;
+
+	// Copied from the game for the drawing code.
+	private final int FRAME_SIZE, TOTAL_ENEMIES, GAME_OVER_TRIGGER_YPOS;
+
+	/**
+	 * Creates a renderer for a game.
+	 * 
+	 * @param game
+	 *            The game to draw, which the screen layout is taken from.
+	 */
+	public GameRenderer(GameSimulation game)
+	{
+		FRAME_SIZE = game.FRAME_SIZE;
+		TOTAL_ENEMIES = game.TOTAL_ENEMIES;
+		GAME_OVER_TRIGGER_YPOS = game.GAME_OVER_TRIGGER_YPOS;
+	}
+
+	/**
+	 * Shows or hides the stats overlay.
+	 * 
+	 * @param stats
+	 *            The stats to show, or null to hide the overlay.
+	 */
+	public void setStats(FrameStats stats)
+	{
+		this.stats = stats;
+	}
+
+	/**
+	 * Turns drawing with pre-rendered sprites on or off.
+	 * 
+	 * @param sprites
+	 *            The cache to draw from, or null to draw shape by shape.
+	 */
+	public void setSprites(SpriteCache sprites)
+	{
+		this.sprites = sprites;
+	}
+
+	/**
+	 * Turns grouping the shape by shape drawing by color on or off. Sprites
+	 * win if both are set.
+	 * 
+	 * @param batcher
+	 *            The batcher to draw with, or null to draw object by object.
+	 */
+	public void setBatcher(DrawBatcher batcher)
+	{
+		this.batcher = batcher;
+	}
+
+	/**
+	 * Turns blanking only the damaged parts of the frame on or off.
+	 * 
+	 * @param damage
+	 *            The damage region of the buffers being drawn to, or null to
+	 *            blank the whole frame every time.
+	 */
+	public void setDamage(DamageRegion damage)
+	{
+		this.damage = damage;
+	}
+
+	/**
+	 * Turns the decoration on the game objects on or off. It only changes how
+	 * the next frames look, not what they cover, so the damage region still
+	 * blanks enough.
+	 * 
+	 * @param pulses
+	 *            Whether to draw the pulse rings around the shots.
+	 * @param thrusters
+	 *            Whether to draw the thrusters behind the ships.
+	 */
+	public void setDetail(boolean pulses, boolean thrusters)
+	{
+		this.pulses = pulses;
+		this.thrusters = thrusters;
+	}
+
+	/**
+	 * Makes the next frames be blanked in full, for when the buffers have lost
+	 * what was drawn to them.
+	 */
+	public void invalidate()
+	{
+		if (damage != null)
+		{
+			damage.invalidate();
+		}
+	}
+
+	/**
+	 * drawFrame() clears the frame and draws whatever the game was showing
+	 * when the snapshot was taken.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn
+	 * @param frame
+	 *            The snapshot of the game to draw.
+	 */
+	public void drawFrame(Graphics pen, FrameSnapshot frame)
+	{
+		if (gameMetrics == null)
+		{
+			gameMetrics = pen.getFontMetrics(gameFont);
+			statsMetrics = pen.getFontMetrics(statsFont);
+		}
+
+		// Blanks the frame with black to allow us to draw new objects.
+		pen.setColor(Color.black);
+		if (damage == null)
+		{
+			pen.fillRect(0, 0, FRAME_SIZE, FRAME_SIZE);
+			shownStats = stats;
+			drawLine = true;
+			drawText = true;
+		} else if (frame.running)
+		{
+			damage.begin();
+			markDamage(pen, frame);
+			damage.clear(pen);
+		} else
+		{
+			// The screens in between games don't change often, and when the
+			// game starts again the buffers hold nothing useful.
+			damage.invalidate();
+			pen.fillRect(0, 0, FRAME_SIZE, FRAME_SIZE);
+			lineShown = false;
+		}
+
+		// Shows the first screen.
+		if (frame.showingStart)
+		{
+			showScreenMessage("PRESS \'R\' TO START", pen, FRAME_SIZE / 2);
+		}
+
+		// Determines whether to show a lose or win screen.
+		if (frame.over)
+		{
+			if (frame.playerWon)
+			{
+				showScreenMessage("YOU WIN", pen, FRAME_SIZE / 2);
+			} else
+			{
+				showScreenMessage("YOU LOSE", pen, FRAME_SIZE / 2);
+			}
+			showScreenMessage("PRESS \'R\' TO RESTART", pen,
+					FRAME_SIZE / 2 + (FRAME_SIZE / 10));
+		}
+
+		// The game itself.
+		if (frame.running)
+		{
+			drawGame(pen, frame);
+		}
+	}
+
+	/**
+	 * drawGame() is responsible for passing the graphics object to all the
+	 * necessary drawing methods, as well as drawing various UI elements.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn
+	 * @param frame
+	 *            The snapshot of the game to draw.
+	 */
+	void drawGame(Graphics pen, FrameSnapshot frame)
+	{
+
+		if (frame.killCounter != shownKills)
+		{
+			shownKills = frame.killCounter;
+			int length = appendInt(killCounterChars, 0, shownKills);
+			// An endless game has no total to count up to.
+			if (TOTAL_ENEMIES != WaveSpec.ENDLESS)
+			{
+				killCounterChars[length++] = '/';
+				length = appendInt(killCounterChars, length, TOTAL_ENEMIES);
+			}
+			killCounterLength = length;
+			killCounterWidth = gameMetrics.charsWidth(killCounterChars, 0,
+					killCounterLength);
+		}
+		pen.setColor(Color.white);
+
+		// The text and the line are left alone where they weren't blanked.
+		if (drawText)
+		{
+			// Draws the kill counter in the top right.
+			pen.setFont(gameFont);
+			int labelHeight = gameMetrics.getAscent();
+			pen.drawChars(killCounterChars, 0, killCounterLength,
+					FRAME_SIZE - killCounterWidth, labelHeight);
+
+			// Draws the stats overlay in the top left, across from the kill
+			// counter.
+			if (shownStats != null)
+			{
+				drawStats(pen, frame, labelHeight);
+			}
+		}
+
+		// Draw the game over line
+		if (drawLine)
+		{
+			pen.drawLine(0, GAME_OVER_TRIGGER_YPOS, FRAME_SIZE,
+					GAME_OVER_TRIGGER_YPOS);
+		}
+
+		// Draw all the objects
+		if (sprites != null)
+		{
+			sprites.validate((Graphics2D) pen);
+		}
+		drawShips(pen, frame);
+		drawShots(pen, frame);
+		if (frame.playerVisible)
+		{
+			drawShip(pen, frame.playerX, frame.playerY, frame.playerSize,
+					frame.playerDirection, frame.playerThrust,
+					frame.playerColor);
+		}
+	}
+
+	/**
+	 * Draws the frame stats summary and the number of entities in play.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn
+	 * @param frame
+	 *            The snapshot being drawn.
+	 * @param top
+	 *            The baseline of the first line.
+	 */
+	private void drawStats(Graphics pen, FrameSnapshot frame, int top)
+	{
+		pen.setFont(statsFont);
+		int lineHeight = statsMetrics.getHeight();
+
+		if (frame.shipCount != shownShips || frame.shotCount != shownShots)
+		{
+			shownShips = frame.shipCount;
+			shownShots = frame.shotCount;
+			int length = appendText(countsChars, 0, "enemies: ");
+			length = appendInt(countsChars, length, shownShips);
+			length = appendText(countsChars, length, "  shots: ");
+			countsLength = appendInt(countsChars, length, shownShots);
+		}
+		pen.drawChars(countsChars, 0, countsLength, 0, top);
+
+		String[] lines = shownStats.getSummary();
+		shownSummary = lines;
+		for (int i = 0; i < lines.length; i++)
+		{
+			pen.drawString(lines[i], 0, top + lineHeight * (i + 1));
+		}
+	}
+
+	/**
+	 * Marks everything drawGame() will draw over in the damage region: the
+	 * box around every ship and shot, the text along the top when it changes
+	 * and the game over line when it appears. It then works out whether the
+	 * text and the line were blanked, and so have to be drawn again. The text
+	 * is blanked all at once if at all, so that the soft edges of the letters
+	 * are never drawn over themselves.
+	 * 
+	 * @param pen
+	 *            The graphics object to which is drawn
+	 * @param frame
+	 *            The snapshot of the game to draw.
+	 */
+	private void markDamage(Graphics pen, FrameSnapshot frame)
+	{
+		FrameStats overlay = stats;
+		FontMetrics metrics = gameMetrics;
+		int textHeight = metrics.getAscent() + metrics.getDescent();
+		if (overlay != null)
+		{
+			textHeight = Math.max(textHeight, metrics.getAscent()
+					+ statsMetrics.getHeight() * overlay.getSummary().length
+					+ statsMetrics.getDescent());
+		}
+		if (frame.killCounter != shownKills || overlay != shownStats
+				|| overlay != null && (frame.shipCount != shownShips
+						|| frame.shotCount != shownShots
+						|| overlay.getSummary() != shownSummary))
+		{
+			damage.add(0, 0, FRAME_SIZE, Math.max(textHeight,
+					shownTextHeight));
+		}
+		shownStats = overlay;
+		shownTextHeight = textHeight;
+
+		// The marks last until every buffer has been cleared, so the line
+		// only has to be marked once.
+		if (!lineShown)
+		{
+			damage.add(0, GAME_OVER_TRIGGER_YPOS, FRAME_SIZE, 1);
+			lineShown = true;
+		}
+
+		for (int i = 0; i < frame.shipCount; i++)
+		{
+			int origin = SpriteCache.shipOrigin(frame.shipSize[i]);
+			damage.add(frame.shipX[i] - origin, frame.shipY[i] - origin,
+					origin * 2 + 1, origin * 2 + 1);
+		}
+		for (int i = 0; i < frame.shotCount; i++)
+		{
+			int origin = SpriteCache.shotOrigin(frame.shotSize[i]);
+			damage.add(frame.shotX[i] - origin, frame.shotY[i] - origin,
+					origin * 2 + 1, origin * 2 + 1);
+		}
+		if (frame.playerVisible)
+		{
+			int origin = SpriteCache.shipOrigin(frame.playerSize);
+			damage.add(frame.playerX - origin, frame.playerY - origin,
+					origin * 2 + 1, origin * 2 + 1);
+		}
+
+		drawLine = damage.isMarked(0, GAME_OVER_TRIGGER_YPOS, FRAME_SIZE, 1);
+		drawText = damage.isMarked(0, 0, FRAME_SIZE, textHeight);
+		if (drawText)
+		{
+			damage.add(0, 0, FRAME_SIZE, textHeight);
+		}
+	}
+
+	/**
+	 * Draws every enemy ship in a snapshot, from the sprite cache if there is
+	 * one, or else with the batcher if there is one.
+	 * 
+	 * @param pen
+	 *            What is being drawn to.
+	 * @param frame
+	 *            The snapshot holding the ships.
+	 */
+	void drawShips(Graphics pen, FrameSnapshot frame)
+	{
+		if (sprites == null && batcher != null)
+		{
+			batcher.drawShips((Graphics2D) pen, frame, thrusters);
+			return;
+		}
+
+		for (int i = 0; i < frame.shipCount; i++)
+		{
+			drawShip(pen, frame.shipX[i], frame.shipY[i], frame.shipSize[i],
+					frame.shipDirection[i], frame.shipThrust[i],
+					frame.shipColor[i]);
+		}
+	}
+
+	/**
+	 * Draws every projectile in a snapshot, from the sprite cache if there is
+	 * one and it holds the shot's pulse size, or else with the batcher if
+	 * there is one.
+	 * 
+	 * @param pen
+	 *            What is being drawn to.
+	 * @param frame
+	 *            The snapshot holding the shots.
+	 */
+	void drawShots(Graphics pen, FrameSnapshot frame)
+	{
+		if (sprites == null && batcher != null)
+		{
+			batcher.drawShots((Graphics2D) pen, frame, pulses);
+			return;
+		}
+
+		for (int i = 0; i < frame.shotCount; i++)
+		{
+			int size = frame.shotSize[i];
+			if (!pulses)
+			{
+				Projectile.paintCore(pen, frame.shotX[i], frame.shotY[i], size,
+						frame.shotColor[i]);
+				continue;
+			}
+
+			Image sprite = sprites == null ? null
+					: sprites.shot(frame.shotColor[i], size,
+							frame.shotPulse[i]);
+			if (sprite == null)
+			{
+				Projectile.paint(pen, frame.shotX[i], frame.shotY[i], size,
+						frame.shotPulse[i], frame.shotColor[i]);
+			} else
+			{
+				int origin = SpriteCache.shotOrigin(size);
+				pen.drawImage(sprite, frame.shotX[i] - origin,
+						frame.shotY[i] - origin, null);
+			}
+		}
+	}
+
+	/**
+	 * Draws one ship, from the sprite cache if there is one.
+	 */
+	private void drawShip(Graphics pen, int x, int y, int size, int direction,
+			int thrustCounter, Color color)
+	{
+		// A ship standing still has no thruster.
+		if (!thrusters)
+		{
+			direction = SpaceShip.STILL;
+		}
+
+		if (sprites == null)
+		{
+			SpaceShip.paint(pen, x, y, size, direction, thrustCounter, color);
+		} else
+		{
+			int origin = SpriteCache.shipOrigin(size);
+			pen.drawImage(sprites.ship(color, size, direction, thrustCounter),
+					x - origin, y - origin, null);
+		}
+	}
+
+	/**
+	 * Writes text into a char array.
+	 * 
+	 * @param chars
+	 *            Where the text is written.
+	 * @param start
+	 *            Where in the array it starts.
+	 * @param text
+	 *            The text.
+	 * @return The index just past the text.
+	 */
+	private static int appendText(char[] chars, int start, String text)
+	{
+		text.getChars(0, text.length(), chars, start);
+		return start + text.length();
+	}
+
+	/**
+	 * Writes a number of 0 or more into a char array in decimal, without
+	 * building a string.
+	 * 
+	 * @param chars
+	 *            Where the digits are written.
+	 * @param start
+	 *            Where in the array they start.
+	 * @param value
+	 *            The number.
+	 * @return The index just past the last digit.
+	 */
+	private static int appendInt(char[] chars, int start, int value)
+	{
+		int end = start;
+		do
+		{
+			chars[end++] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+
+		// The digits came out backwards.
+		for (int i = start, j = end - 1; i < j; i++, j--)
+		{
+			char c = chars[i];
+			chars[i] = chars[j];
+			chars[j] = c;
+		}
+		return end;
+	}
+
+	/**
+	 * This method is used for displaying messages to the screen (for starting,
+	 * and restarting).
+	 * 
+	 * @param screenMessage
+	 *            Message to be shown
+	 * @param pen
+	 *            Graphics object to which is drawn
+	 * @param yPos
+	 *            The y postion where the message is placed.
+	 */
+	private void showScreenMessage(String screenMessage, Graphics pen, int yPos)
+	{
+		pen.setColor(Color.white);
+		pen.setFont(gameFont);
+		int labelWidth = gameMetrics.stringWidth(screenMessage);
+		int labelHeight = gameMetrics.getAscent();
+
+		pen.drawString(screenMessage, (FRAME_SIZE / 2) - (labelWidth / 2),
+				yPos + (labelHeight / 2));
+	}
+}
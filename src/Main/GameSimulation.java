@@ -0,0 +1,918 @@
+package Main;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import GameObjects.CollisionSystem;
+import GameObjects.EntityStore;
+import GameObjects.MovementSystem;
+import GameObjects.PositionStore;
+import GameObjects.Projectile;
+import GameObjects.SpaceShip;
+
+/**
+ * GameSimulation holds the state and rules of the game: the player, enemies and
+ * shots, and everything that happens to them each tick. It has nothing to do
+ * with the window, so it can be run without a display, for example by
+ * HeadlessRunner, as well as by SpaceInvaders.
+ * 
+ * The enemies and the shots are each an archetype in an EntityStore, made of
+ * just the components they need. Each tick runs the systems over them in
+ * turn: the CollisionSystem finds the shots that hit, the enemies follow the
+ * enemy path by their age, and the MovementSystem moves the shots and the
+ * player.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class GameSimulation
+{
+	// DO NOT MODIFY: these change based on the game state.
+	private boolean runGame = false, showStart = true, endGame = false,
+			playerWon = false;
+
+	// Keeps track of the number of enemy kills.
+	private int killCounter = 0;
+
+	// The number of simulation ticks run so far, and the tick of the last
+	// shot, which together keep track of the time between each shot.
+	private long tickCount = 0, lastShotTick = Long.MIN_VALUE / 2;
+
+	// The default colors of all the objects. The enemies' colors come from
+	// the waves.
+	private final Color SHOT_COLOR = Color.blue, PLAYER_COLOR = Color.white;
+
+	// The settings of this game, from a GameConfig.
+	final int FRAME_SIZE, SLEEP_TIME, // The number of ms between ticks.
+			// The total size of all the waves of enemies, or
+			// WaveSpec.ENDLESS if the last one never ends
+			TOTAL_ENEMIES,
+			// The most enemies that can be in play at once
+			MAX_LIVE_ENEMIES,
+			PLAYER_SPEED, ENEMY_SPEED, PROJECTILE_SPEED, // Positive integers
+			SHIP_SIZE, // The physical size of all ships
+			SHOT_SIZE, // The physical size of projectiles
+			RATE_OF_FIRE, // Time between shots in milliseconds
+			// RATE_OF_FIRE expressed in ticks
+			RATE_OF_FIRE_TICKS,
+			// Triggers the lose condition
+			GAME_OVER_TRIGGER_YPOS,
+			// The location of the x axis on which the player moves.
+			PLAYER_YAXIS_POS;
+
+	// Whether the player fires without holding the fire key.
+	private final boolean autoFire;
+
+	// Where the player's input is read from, and what it said this tick.
+	private InputSource input;
+	private int keys;
+
+	// The components of an enemy and of a shot.
+	private static final int ENEMY = EntityStore.POSITION
+			| EntityStore.COLLIDER | EntityStore.RENDER | EntityStore.PATH,
+			SHOT = EntityStore.POSITION | EntityStore.COLLIDER
+					| EntityStore.RENDER | EntityStore.SWING;
+
+	// Instantiation of our game objects.
+	private SpaceShip player;
+
+	// Enemies only enter the store once they start moving.
+	private EntityStore<SpaceShip> enemies;
+
+	private EntityStore<Projectile> shots = new EntityStore<>(64, SHOT,
+			Projectile::new);
+
+	// The path every enemy follows, looked up by how old the enemy is.
+	private final EnemyPath path;
+
+	// The waves of enemies, the wave the next enemy to enter belongs to, how
+	// many of that wave are still waiting off screen (or WaveSpec.ENDLESS),
+	// and the number of ticks until the next one enters. Waiting enemies are
+	// only a count; nothing is made for them until they enter.
+	private final WaveSpec waves;
+	private int wave, waitingInWave, ticksToSpawn = 0;
+
+	// How many times the wave has moved, and how many enemies in play entered
+	// at each of those moves, in a ring as long as the path: an enemy that is
+	// age ticks old entered at moves - age. The path never goes back up, so
+	// the oldest enemy is always the lowest one, and the game is lost once it
+	// is path.length ticks old. oldestSpawn is the move the oldest enemy
+	// entered at; it only moves forward as enemies are destroyed, so keeping
+	// it up to date costs nothing per tick on average.
+	private long moves = 0, oldestSpawn = Long.MAX_VALUE;
+	private final int[] spawnCounts;
+
+	// Finds the shots that hit the enemies, with a grid of the enemies
+	// rebuilt as they move.
+	private CollisionSystem enemyHits;
+
+	// Where the phases of each tick are timed, or null when they aren't.
+	private FrameStats stats;
+
+	// The pool enemies are moved on in parallel, or null to move them on the
+	// calling thread. Waves smaller than PARALLEL_THRESHOLD are always moved
+	// on the calling thread, and each parallel task moves at most
+	// PARALLEL_CHUNK enemies.
+	private ForkJoinPool pool;
+	private static final int PARALLEL_THRESHOLD = 8192, PARALLEL_CHUNK = 4096;
+
+	// How many times the wave has been moved on the pool.
+	private long parallelMoves = 0;
+
+	/**
+	 * Sets up a new game of the original size, waiting on the start screen.
+	 * 
+	 * @param input
+	 *            Where the player's input is read from, for example the
+	 *            KeyBoard.
+	 */
+	public GameSimulation(InputSource input)
+	{
+		this(input, new GameConfig());
+	}
+
+	/**
+	 * Sets up a new game, waiting on the start screen.
+	 * 
+	 * @param input
+	 *            Where the player's input is read from, for example the
+	 *            KeyBoard.
+	 * @param config
+	 *            The size and speed of the game.
+	 */
+	public GameSimulation(InputSource input, GameConfig config)
+	{
+		this.input = input;
+
+		FRAME_SIZE = config.frameSize;
+		SLEEP_TIME = config.tickMillis;
+		waves = config.waves;
+		TOTAL_ENEMIES = waves.getTotal();
+		PLAYER_SPEED = config.playerSpeed;
+		ENEMY_SPEED = config.enemySpeed;
+		PROJECTILE_SPEED = config.projectileSpeed;
+		SHIP_SIZE = config.shipSize;
+		SHOT_SIZE = config.shotSize;
+		RATE_OF_FIRE = config.rateOfFire;
+		RATE_OF_FIRE_TICKS = RATE_OF_FIRE / SLEEP_TIME;
+		GAME_OVER_TRIGGER_YPOS = FRAME_SIZE - SHIP_SIZE * 4;
+		PLAYER_YAXIS_POS = FRAME_SIZE - SHIP_SIZE * 2;
+		autoFire = config.autoFire;
+		if (config.parallel)
+		{
+			pool = ForkJoinPool.commonPool();
+		}
+
+		player = new SpaceShip(FRAME_SIZE / 2, PLAYER_YAXIS_POS, SHIP_SIZE,
+				PLAYER_COLOR);
+		path = new EnemyPath(FRAME_SIZE, SHIP_SIZE, ENEMY_SPEED,
+				GAME_OVER_TRIGGER_YPOS);
+		spawnCounts = new int[path.length + 1];
+
+		// Enemies leave play once they are path.length ticks old, so no more
+		// than this many can have entered in that time.
+		int live = path.length
+				/ waves.getShortestCadence(path.spawnInterval) + 2;
+		MAX_LIVE_ENEMIES = TOTAL_ENEMIES == WaveSpec.ENDLESS ? live
+				: Math.min(live, TOTAL_ENEMIES);
+		enemies = new EntityStore<>(MAX_LIVE_ENEMIES, ENEMY, SpaceShip::new);
+		enemyHits = new CollisionSystem(SHIP_SIZE, MAX_LIVE_ENEMIES);
+
+		// The player should be both visible and moveable.
+		player.setIsMoving(true);
+		player.setIsVisible(true);
+
+		// Fill the enemy array with enemies.
+		fillEnemyArray();
+	}
+
+	/**
+	 * tick() advances the game by one fixed step: it handles the start and
+	 * restart screens, and runs the game itself while it is in progress. The
+	 * input is polled once, up front, so the whole tick sees the same keys.
+	 */
+	public void tick()
+	{
+		tickCount++;
+		keys = input.poll();
+
+		// Leaves the first screen.
+		if (!runGame && showStart)
+		{
+			if ((keys & InputSource.GO) != 0)
+			{
+				runGame = true;
+				showStart = false;
+			}
+		}
+
+		// Restarts from the lose or win screen.
+		if (!runGame && endGame)
+		{
+			if ((keys & InputSource.GO) != 0)
+			{
+				killCounter = 0;
+				fillEnemyArray();
+				player.reset(FRAME_SIZE / 2, PLAYER_YAXIS_POS, SHIP_SIZE,
+						PLAYER_COLOR);
+				player.setIsVisible(true);
+				player.setIsMoving(true);
+
+				runGame = true;
+				showStart = false;
+				endGame = false;
+			}
+		}
+
+		// The actual updating of the game. The timed version is kept
+		// separate so that it costs nothing while the stats are off.
+		if (runGame && !endGame)
+		{
+			if (stats == null)
+			{
+				checkForEnemyHits();
+				updateGame();
+				searchForWinner();
+			} else
+			{
+				long start = System.nanoTime();
+				checkForEnemyHits();
+				long hitsDone = System.nanoTime();
+				updateGame();
+				long updateDone = System.nanoTime();
+				searchForWinner();
+				long winnerDone = System.nanoTime();
+
+				stats.record(FrameStats.COLLISION, hitsDone - start);
+				stats.record(FrameStats.UPDATE, updateDone - hitsDone);
+				stats.record(FrameStats.WINNER, winnerDone - updateDone);
+			}
+		}
+	}
+
+	/**
+	 * Turns the per-phase timing of tick() on or off.
+	 * 
+	 * @param stats
+	 *            Where the timings go, or null to stop timing.
+	 */
+	public void setStats(FrameStats stats)
+	{
+		this.stats = stats;
+	}
+
+	/**
+	 * Turns the parallel enemy update on or off. The game plays out exactly
+	 * the same either way; the pool only pays off for very large waves.
+	 * 
+	 * @param pool
+	 *            The pool to move enemies on, or null to move them on the
+	 *            thread calling tick().
+	 */
+	public void setPool(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Whether the start screen is showing.
+	 * 
+	 * @return True until the game is first started.
+	 */
+	public boolean isShowingStart()
+	{
+		return !runGame && showStart;
+	}
+
+	/**
+	 * Whether a game is in progress.
+	 * 
+	 * @return True while the game is being played.
+	 */
+	public boolean isRunning()
+	{
+		return runGame && !endGame;
+	}
+
+	/**
+	 * Whether the last game has ended and the win or lose screen is showing.
+	 * 
+	 * @return True after a win or a loss, until the game is restarted.
+	 */
+	public boolean isOver()
+	{
+		return !runGame && endGame;
+	}
+
+	/**
+	 * Whether the last game was won.
+	 * 
+	 * @return True if the player destroyed every enemy.
+	 */
+	public boolean hasPlayerWon()
+	{
+		return playerWon;
+	}
+
+	/**
+	 * A simple getter for the number of kills in this game.
+	 * 
+	 * @return The number of enemies destroyed.
+	 */
+	public int getKillCounter()
+	{
+		return killCounter;
+	}
+
+	/**
+	 * A simple getter for the number of ticks run so far.
+	 * 
+	 * @return The number of ticks since the simulation was created.
+	 */
+	public long getTickCount()
+	{
+		return tickCount;
+	}
+
+	/**
+	 * A simple getter for the player.
+	 * 
+	 * @return The player's ship.
+	 */
+	public SpaceShip getPlayer()
+	{
+		return player;
+	}
+
+	/**
+	 * A simple getter for the path the enemies follow.
+	 * 
+	 * @return The enemy path.
+	 */
+	public EnemyPath getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * A simple getter for the enemies in play.
+	 * 
+	 * @return The store holding the enemies.
+	 */
+	public EntityStore<SpaceShip> getEnemies()
+	{
+		return enemies;
+	}
+
+	/**
+	 * A simple getter for the shots in play.
+	 * 
+	 * @return The store holding the shots.
+	 */
+	public EntityStore<Projectile> getShots()
+	{
+		return shots;
+	}
+
+	/**
+	 * How many times moveEnemies() has split the wave across the pool, which
+	 * only happens with a pool set and PARALLEL_THRESHOLD enemies in play.
+	 * 
+	 * @return The number of parallel moves so far.
+	 */
+	long getParallelMoves()
+	{
+		return parallelMoves;
+	}
+
+	/**
+	 * Hashes everything that decides how the game plays on: which screen is
+	 * showing, the kill count, the wave's progress, the player, and every
+	 * enemy and shot in play, slot by slot. Two games that hash the same
+	 * after every tick have played out the same.
+	 * 
+	 * @return The hash.
+	 */
+	long stateHash()
+	{
+		long hash = tickCount;
+		hash = hash * 31 + (runGame ? 1 : 0) + (endGame ? 2 : 0)
+				+ (playerWon ? 4 : 0) + (showStart ? 8 : 0);
+		hash = hash * 31 + killCounter;
+		hash = hash * 31 + moves;
+		hash = hash * 31 + wave;
+		hash = hash * 31 + waitingInWave;
+		hash = hash * 31 + ticksToSpawn;
+		hash = hash * 31 + player.getX();
+		hash = hash * 31 + player.getY();
+		hash = hashStore(hash, enemies);
+		return hashStore(hash, shots);
+	}
+
+	/**
+	 * Adds every live entity of a store to a hash, component by component.
+	 */
+	private static long hashStore(long hash, EntityStore<?> store)
+	{
+		hash = hash * 31 + store.size();
+		for (int i = 0; i < store.size(); i++)
+		{
+			hash = hash * 31 + store.flags[i];
+			if (store.position != null)
+			{
+				hash = hash * 31 + store.position.x[i];
+				hash = hash * 31 + store.position.y[i];
+				hash = hash * 31 + store.position.xVel[i];
+				hash = hash * 31 + store.position.yVel[i];
+			}
+			if (store.path != null)
+			{
+				hash = hash * 31 + store.path.age[i];
+				hash = hash * 31 + store.path.segment[i];
+			}
+			if (store.render != null)
+			{
+				hash = hash * 31 + store.render.anim[i];
+			}
+			if (store.swing != null)
+			{
+				hash = hash * 31 + store.swing.swing[i];
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * updateGame() modifies all of the game data based on the current state of
+	 * the game.
+	 */
+	void updateGame()
+	{
+		// Only run these if the game is actually running.
+		if (runGame)
+		{
+			moveEnemies();
+			playerAction();
+			player.move();
+		}
+
+		// This ensures that the player does not leave the game area.
+		if (checkBoundaries(player.getX(), player.getY()))
+		{
+			player.setX(player.getX() - player.getXVel());
+		}
+
+		// This checks if any of the shots have left the frame, if so
+		// it removes them. Otherwise, it moves them.
+		MovementSystem.moveShots(shots, FRAME_SIZE);
+	}
+
+	/**
+	 * This modifies the game state based on what the input source says the
+	 * user has entered. The player can move and fire at the same time; if
+	 * both directions are held, left wins.
+	 */
+	private void playerAction()
+	{
+		if ((keys & InputSource.LEFT) != 0)
+		{
+			player.setXVel(-PLAYER_SPEED);
+		} else if ((keys & InputSource.RIGHT) != 0)
+		{
+			player.setXVel(PLAYER_SPEED);
+		} else
+		{
+			player.setXVel(0);
+		}
+
+		if (autoFire || (keys & InputSource.FIRE) != 0)
+		{
+			shootIfAble();
+		}
+	}
+
+	/**
+	 * This method resets the enemy wave. The enemies wait at a position off
+	 * screen and enter one at a time. They move left until they hit the edge,
+	 * then enter the game screen and continue their behavior. They enter on
+	 * a fixed beat, by default each one when the one before it would be a
+	 * ship's length from the edge of the screen, and wave after wave.
+	 */
+	private void fillEnemyArray()
+	{
+		// The old enemies are gone, so is their place in the grid.
+		clearEnemies();
+
+		// The first enemy starts moving right away. It doesn't take its
+		// first step until the next moveEnemies(), so the next one waits a
+		// tick longer.
+		wave = 0;
+		waitingInWave = waves.count[0];
+		spawnEnemy(0);
+		ticksToSpawn++;
+	}
+
+	/**
+	 * Empties the wave completely, with no enemies or shots in play and none
+	 * waiting to enter. Used by the benchmarks to set up their scenarios.
+	 */
+	void clearWave()
+	{
+		clearEnemies();
+		shots.clear();
+		wave = waves.size();
+	}
+
+	/**
+	 * Takes every enemy out of play, along with their place in the grid and
+	 * in the count of when they entered.
+	 */
+	private void clearEnemies()
+	{
+		enemyHits.clear();
+		enemies.clear();
+		Arrays.fill(spawnCounts, 0);
+		oldestSpawn = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Finds where in the ring of spawnCounts a move is counted.
+	 * 
+	 * @param move
+	 *            The move an enemy entered at.
+	 * @return The index into spawnCounts.
+	 */
+	private int spawnIndex(long move)
+	{
+		return (int) Math.floorMod(move, (long) spawnCounts.length);
+	}
+
+	/**
+	 * Brings the next waiting enemy into play, moving and visible, and moves
+	 * on to the next wave once this one has all entered.
+	 * 
+	 * @param age
+	 *            How many ticks ago it entered, 0 unless fast forwarding.
+	 */
+	private void spawnEnemy(int age)
+	{
+		addEnemy(age, wave);
+		if (waitingInWave != WaveSpec.ENDLESS && --waitingInWave == 0)
+		{
+			wave++;
+			waitingInWave = wave < waves.size() ? waves.count[wave] : 0;
+		}
+
+		if (wave < waves.size())
+		{
+			ticksToSpawn = waves.cadence[wave] == WaveSpec.BEAT
+					? path.spawnInterval : waves.cadence[wave];
+		}
+	}
+
+	/**
+	 * Puts an enemy of a wave into play partway along its path, moving and
+	 * visible. Used for spawning, and by the benchmarks to set up their
+	 * scenarios.
+	 * 
+	 * @param age
+	 *            How many ticks the enemy has already moved along the path.
+	 * @param wave
+	 *            The wave it belongs to, which decides its path and color.
+	 * @return The enemy's slot.
+	 */
+	int addEnemy(int age, int wave)
+	{
+		int slot = enemies.add();
+		enemies.view(slot).reset(path.spawnX, path.spawnY, SHIP_SIZE,
+				waves.color[wave]);
+		enemies.flags[slot] = EntityStore.MOVING | EntityStore.VISIBLE;
+		if (waves.mirrored[wave])
+		{
+			enemies.flags[slot] |= EntityStore.MIRRORED;
+		}
+		enemies.path.age[slot] = age;
+		placeEnemy(slot, path.segmentAt(Math.max(age, 1)));
+		enemies.render.anim[slot] = age & 3;
+
+		long spawn = moves - age;
+		spawnCounts[spawnIndex(spawn)]++;
+		oldestSpawn = Math.min(oldestSpawn, spawn);
+		return slot;
+	}
+
+	/**
+	 * Moves the whole wave forward in time without running the ticks in
+	 * between, as if moveEnemies() had been called that many times: every
+	 * enemy jumps along the path, and the enemies that would have entered in
+	 * the meantime are brought in at the right places. Nothing is shot and
+	 * the game over line isn't checked until the next tick.
+	 * 
+	 * @param ticks
+	 *            How many ticks to skip.
+	 */
+	public void fastForwardEnemies(int ticks)
+	{
+		int[] age = enemies.path.age, anim = enemies.render.anim;
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			age[i] += ticks;
+			placeEnemy(i, path.segmentAt(age[i]));
+			anim[i] = (anim[i] + ticks) & 3;
+		}
+
+		moves += ticks;
+		int left = ticks;
+		while (wave < waves.size() && left >= ticksToSpawn)
+		{
+			left -= ticksToSpawn;
+			// It enters and takes its first step on the same tick.
+			spawnEnemy(left + 1);
+		}
+		ticksToSpawn -= left;
+
+		enemyHits.fill(enemies);
+	}
+
+	/**
+	 * Moves an enemy to where the path has it for its age, and points it
+	 * the way the path is heading so its thruster is drawn right. Mirrored
+	 * enemies are flipped across the middle of the screen.
+	 * 
+	 * @param i
+	 *            The slot of the enemy.
+	 * @param segment
+	 *            The segment of the path its age falls on.
+	 */
+	private void placeEnemy(int i, int segment)
+	{
+		boolean mirrored = (enemies.flags[i] & EntityStore.MIRRORED) != 0;
+		PositionStore position = enemies.position;
+		int age = enemies.path.age[i];
+		int x = path.xAt(segment, age);
+		enemies.path.segment[i] = segment;
+		position.x[i] = mirrored ? FRAME_SIZE - x : x;
+		position.y[i] = path.yAt(segment, age);
+		position.xVel[i] = mirrored ? -path.dx[segment] : path.dx[segment];
+		position.yVel[i] = path.dy[segment];
+	}
+
+	/**
+	 * This method goes through the entire store and moves each enemy. It also
+	 * brings in the next waiting enemy when its turn comes, so that they all
+	 * start in the same place off screen, but at different times. The
+	 * collision grid is then rebuilt from the new positions.
+	 * 
+	 * Every enemy follows the same path, so moving one is a lookup on its age
+	 * and nothing links one enemy to another. With a pool set and a big enough
+	 * wave, the store is split into chunks that are moved in parallel. The
+	 * grid is always filled on this thread, in slot order, so the result is
+	 * the same as moving them one by one.
+	 * 
+	 */
+	void moveEnemies()
+	{
+		// Start the next ship moving once its wave's cadence has passed,
+		// by default when the last one is a ship's length away from the
+		// edge of the screen.
+		if (wave < waves.size() && --ticksToSpawn <= 0)
+		{
+			spawnEnemy(0);
+		}
+
+		if (pool != null && enemies.size() >= PARALLEL_THRESHOLD)
+		{
+			pool.invoke(new MoveTask(0, enemies.size()));
+			parallelMoves++;
+		} else
+		{
+			moveEnemies(0, enemies.size());
+		}
+		moves++;
+
+		enemyHits.fill(enemies);
+	}
+
+	/**
+	 * Moves the enemies in a range of slots one tick along the path. This
+	 * works straight on the store's arrays so that it runs over primitives
+	 * in order, and only touches the slots in the range. An enemy only
+	 * looks past its current segment when its age runs off the end of it.
+	 * 
+	 * @param from
+	 *            The first slot to move.
+	 * @param to
+	 *            One past the last slot to move.
+	 */
+	private void moveEnemies(int from, int to)
+	{
+		PositionStore position = enemies.position;
+		int[] x = position.x, y = position.y;
+		int[] age = enemies.path.age, segment = enemies.path.segment;
+		int[] anim = enemies.render.anim, flags = enemies.flags;
+		int[] until = path.until;
+
+		for (int i = from; i < to; i++)
+		{
+			int now = ++age[i];
+			int on = segment[i];
+			boolean mirrored = (flags[i] & EntityStore.MIRRORED) != 0;
+			if (now > until[on])
+			{
+				// The path turns here.
+				on++;
+				segment[i] = on;
+				position.xVel[i] = mirrored ? -path.dx[on] : path.dx[on];
+				position.yVel[i] = path.dy[on];
+			}
+			int pathX = path.xAt(on, now);
+			x[i] = mirrored ? FRAME_SIZE - pathX : pathX;
+			y[i] = path.yAt(on, now);
+
+			// The thruster cycles through four frames.
+			if ((flags[i] & EntityStore.VISIBLE) != 0)
+			{
+				anim[i] = (anim[i] + 1) & 3;
+			}
+		}
+	}
+
+	/**
+	 * Moves a range of enemies, splitting it in half until the pieces are no
+	 * bigger than PARALLEL_CHUNK.
+	 */
+	@SuppressWarnings("serial")
+	private class MoveTask extends RecursiveAction
+	{
+		private final int from, to;
+
+		MoveTask(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= PARALLEL_CHUNK)
+			{
+				moveEnemies(from, to);
+			} else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new MoveTask(from, mid), new MoveTask(mid, to));
+			}
+		}
+	}
+
+	/**
+	 * This method checks each frame to see if any of the win/loss conditions
+	 * have been met. Only the oldest enemy can be the lowest, so the check
+	 * doesn't look at the other enemies at all. The game can only end once:
+	 * after that there is nothing left to check until it is restarted.
+	 * 
+	 */
+	void searchForWinner()
+	{
+		if (!runGame)
+		{
+			return;
+		}
+
+		// Skip past the moves whose enemies have all been destroyed.
+		while (oldestSpawn <= moves
+				&& spawnCounts[spawnIndex(oldestSpawn)] == 0)
+		{
+			oldestSpawn++;
+		}
+
+		// If the lowest enemy has reached the bottom of the screen.
+		if (oldestSpawn <= moves && moves - oldestSpawn >= path.length)
+		{
+			finishGame(false);
+		} else if (killCounter == TOTAL_ENEMIES)
+		{
+			// If at any time the number of kills = the total number of
+			// enemies.
+			finishGame(true);
+		}
+	}
+
+	/**
+	 * Ends the game, showing the win or lose screen, and clears out the
+	 * objects.
+	 * 
+	 * @param won
+	 *            Whether the player won.
+	 */
+	private void finishGame(boolean won)
+	{
+		// Modify the game state.
+		runGame = false;
+		endGame = true;
+		playerWon = won;
+
+		// And clear out our objects.
+		clearEnemies();
+		shots.clear();
+		player.setIsVisible(false);
+	}
+
+	/**
+	 * shootIfAble() checks whenever the spacebar is pressed, if the ship can
+	 * add another shot to the projectile array. Ability to shoot is determined
+	 * by the number of ticks between shots and if the shot is the first shot
+	 * or not.
+	 * 
+	 */
+	private void shootIfAble()
+	{
+		if (getShotTicks() > RATE_OF_FIRE_TICKS || shots.size() == 0)
+		{
+			createNewShot();
+		}
+
+	}
+
+	/**
+	 * This method adds a shot at the player's position to the shot store. It
+	 * also logs the tick the shot was created on to keep track of time
+	 * between shots.
+	 */
+	private void createNewShot()
+	{
+		Projectile shot = shots.view(shots.add());
+		shot.reset(player.getX(), player.getY(), SHOT_SIZE, SHOT_COLOR);
+		shot.setYVel(-PROJECTILE_SPEED);
+		lastShotTick = tickCount;
+	}
+
+	/**
+	 * Calculates the number of ticks since the last shot.
+	 * 
+	 * @return The number of ticks since the last shot.
+	 */
+	private long getShotTicks()
+	{
+		return tickCount - lastShotTick;
+	}
+
+	/**
+	 * Checks each shot against the enemies near it to see if there are any
+	 * intersections, if there is, then remove those objects from the screen.
+	 * The CollisionSystem removes the shots and marks the enemies they hit,
+	 * which are then removed here.
+	 */
+	void checkForEnemyHits()
+	{
+		int kills = enemyHits.hitTargets(shots, enemies);
+		if (kills > 0)
+		{
+			// Enemy kill confirmed.
+			killCounter += kills;
+			removeDeadEnemies();
+		}
+	}
+
+	/**
+	 * Removes every enemy marked as dead. The store is walked backwards so
+	 * that the enemy moved into a removed slot has already been looked at.
+	 * The grid ids go stale here, but the grid is rebuilt by moveEnemies()
+	 * before it is used again.
+	 */
+	private void removeDeadEnemies()
+	{
+		for (int i = enemies.size() - 1; i >= 0; i--)
+		{
+			if ((enemies.flags[i] & EntityStore.DEAD) != 0)
+			{
+				spawnCounts[spawnIndex(moves - enemies.path.age[i])]--;
+				enemies.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * This method returns true if the passed x,y position exists outside of the
+	 * frame. It is used to delete shots as they leave the frame.
+	 * 
+	 * @param xPos
+	 *            The x position to check
+	 * @param yPos
+	 *            The y position to check
+	 * @return Whether or not the point is outside.
+	 */
+	private boolean checkBoundaries(int xPos, int yPos)
+	{
+		boolean isOutside = false;
+		if ((xPos >= FRAME_SIZE || xPos <= 0)
+				|| (yPos >= FRAME_SIZE || yPos <= 0))
+		{
+			isOutside = true;
+		}
+		return isOutside;
+	}
+}
@@ -0,0 +1,433 @@
+package Main;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import GameObjects.SpriteCache;
+
+/**
+ * HeadlessRunner runs the game logic without a window, as fast as it can, and
+ * reports how many ticks per second it managed. The fire and start keys are
+ * held down the whole time, so the player keeps shooting and a new game starts
+ * as soon as one ends.
+ * 
+ * With -replay, the input comes from a session recorded by InputRecorder
+ * instead, and the recording is played until it runs out (or for the given
+ * number of ticks), which turns any recorded session into a repeatable
+ * workload. The game is set up with the settings the session was recorded
+ * with; config arguments given as well have to come to the same settings.
+ * 
+ * The game can be sized with the GameConfig arguments, for example
+ * "-preset stress".
+ * 
+ * With -envs n, it runs n games at once through a VectorEnv, each given a
+ * random action every step, and reports how many game steps per second that
+ * managed across all of them. The tick count is then the total number of
+ * game steps.
+ * 
+ * With -allocs, it checks that the steady state of the game doesn't allocate:
+ * every tick is followed by taking a FrameSnapshot and drawing it into an
+ * off-screen image, and the bytes the thread allocates are counted in
+ * windows of ticks. It warms up a window at a time until a whole window goes
+ * by without allocating or the JIT compiling anything, then runs half the
+ * ticks in windows that must not allocate at all. The one allocation let
+ * through is the JIT's own: when it throws compiled code away, the objects
+ * its escape analysis had kept off the heap, like the Rectangles
+ * Graphics.drawImage() works with, are allocated for real until the code is
+ * compiled again. The bytes of a window in which the JIT compiled, or of the
+ * window just before one, are subtracted and reported separately; any other
+ * byte makes it say so and exit with status 1, so a build script running it
+ * fails.
+ * 
+ * With -compare, it plays the game twice side by side with the keys held,
+ * once moving the enemies on this thread and once on a fork/join pool, and
+ * checks after every tick that both games hash to the same state. It fails if
+ * they ever differ, or if the wave never got big enough to be moved in
+ * parallel, for example "-compare -preset huge 60000".
+ * 
+ * Usage: java Main.HeadlessRunner [-replay file] [-allocs] [-envs n]
+ * [-compare] [config arguments] [ticks]
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class HeadlessRunner
+{
+	// How many ticks to run when no count is given.
+	private static final long DEFAULT_TICKS = 1000000;
+
+	// How many windows the steady ticks of -allocs are split into.
+	private static final int ALLOC_WINDOWS = 100;
+
+	// How many threads -compare moves the parallel game's wave on, however
+	// many cores there are, so the chunks really do run at the same time.
+	private static final int COMPARE_THREADS = 4;
+
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+
+		long ticks = -1;
+		String replay = null;
+		boolean checkAllocs = false, compare = false;
+		int envs = 0;
+		ArrayList<String> configArgs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-replay"))
+			{
+				if (i + 1 == args.length)
+				{
+					usage("-replay needs a file");
+				}
+				replay = args[++i];
+			} else if (args[i].equals("-allocs"))
+			{
+				checkAllocs = true;
+			} else if (args[i].equals("-compare"))
+			{
+				compare = true;
+			} else if (args[i].equals("-envs"))
+			{
+				envs = i + 1 < args.length && args[i + 1].matches("\\d{1,9}")
+						? Integer.parseInt(args[++i]) : 0;
+				if (envs < 1)
+				{
+					usage("-envs needs a number of games of at least 1");
+				}
+			} else if (args[i].matches("\\d+"))
+			{
+				ticks = Long.parseLong(args[i]);
+			} else
+			{
+				configArgs.add(args[i]);
+			}
+		}
+		GameConfig config;
+		try
+		{
+			config = GameConfig.load(configArgs.toArray(new String[0]));
+		} catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		InputSource input = null;
+		if (replay != null)
+		{
+			if (envs > 0)
+			{
+				usage("-envs plays random actions, and can't be used with"
+						+ " -replay");
+			}
+			try
+			{
+				input = new InputReplay(Paths.get(replay));
+			} catch (IOException e)
+			{
+				usage("Can't open input file: " + e.getMessage());
+			}
+			GameConfig recorded = ((InputReplay) input).getConfig();
+			if (!configArgs.isEmpty()
+					&& !recorded.getSettings().equals(config.getSettings()))
+			{
+				usage(replay + " was recorded with other settings:\n"
+						+ recorded.getSettings().trim());
+			}
+			config = recorded;
+		}
+
+		if (compare)
+		{
+			if (input != null || envs > 0 || checkAllocs)
+			{
+				usage("-compare holds the keys itself, and can't be used with"
+						+ " -replay, -envs or -allocs");
+			}
+			System.exit(compareParallel(config,
+					ticks < 0 ? DEFAULT_TICKS : ticks) ? 0 : 1);
+		}
+
+		if (input == null)
+		{
+			input = heldKeys();
+		}
+
+		// A replay runs for as long as it was recorded.
+		if (ticks < 0)
+		{
+			ticks = input instanceof InputReplay
+					? ((InputReplay) input).getLength() : DEFAULT_TICKS;
+		}
+
+		if (envs > 0)
+		{
+			runEnvs(config, envs, ticks);
+			return;
+		}
+
+		GameSimulation game = new GameSimulation(input, config);
+
+		if (checkAllocs)
+		{
+			System.exit(checkAllocations(game, ticks) ? 0 : 1);
+		}
+
+		long start = System.nanoTime();
+		for (long i = 0; i < ticks; i++)
+		{
+			game.tick();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("%d ticks in %.3f s: %.0f ticks/s%n", ticks,
+				seconds, ticks / seconds);
+		System.out.printf("kills in current game: %d, enemies in play: %d%n",
+				game.getKillCounter(), game.getEnemies().size());
+	}
+
+	/**
+	 * Prints what went wrong and how to run the program, and exits with
+	 * status 1.
+	 * 
+	 * @param problem
+	 *            What was wrong with the arguments.
+	 */
+	private static void usage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println("Usage: java Main.HeadlessRunner [-replay file]"
+				+ " [-allocs] [-envs n] [-compare] [config arguments]"
+				+ " [ticks]");
+		System.exit(1);
+	}
+
+	/**
+	 * A keyboard with the fire and start keys held down.
+	 */
+	private static KeyBoard heldKeys()
+	{
+		KeyBoard keyboard = new KeyBoard();
+		keyboard.press(InputSource.GO | InputSource.FIRE);
+		return keyboard;
+	}
+
+	/**
+	 * Plays the same game twice, once with the enemies moved on this thread
+	 * and once on a pool of COMPARE_THREADS, and compares their state after
+	 * every tick.
+	 * 
+	 * @param config
+	 *            The size and speed of both games.
+	 * @param ticks
+	 *            How many ticks to play.
+	 * @return Whether the games stayed the same and the parallel one really
+	 *         moved its wave on the pool.
+	 */
+	private static boolean compareParallel(GameConfig config, long ticks)
+	{
+		GameSimulation serial = new GameSimulation(heldKeys(), config),
+				parallel = new GameSimulation(heldKeys(), config);
+		ForkJoinPool pool = new ForkJoinPool(COMPARE_THREADS);
+		serial.setPool(null);
+		parallel.setPool(pool);
+
+		try
+		{
+			for (long i = 0; i < ticks; i++)
+			{
+				serial.tick();
+				parallel.tick();
+				if (serial.stateHash() != parallel.stateHash())
+				{
+					System.out.printf("FAIL: the games differ after tick %d%n",
+							i + 1);
+					return false;
+				}
+			}
+		} finally
+		{
+			pool.shutdown();
+		}
+
+		long moves = parallel.getParallelMoves();
+		System.out.printf("%d ticks played the same, %d of them with the wave"
+				+ " moved on %d threads%n", ticks, moves, COMPARE_THREADS);
+		if (moves == 0)
+		{
+			System.out.println("FAIL: the wave never got big enough to be"
+					+ " moved in parallel");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Steps many games at once with random actions and reports the
+	 * throughput.
+	 * 
+	 * @param config
+	 *            The size and speed of every game.
+	 * @param envs
+	 *            How many games to run.
+	 * @param steps
+	 *            How many game steps to run in all.
+	 */
+	private static void runEnvs(GameConfig config, int envs, long steps)
+	{
+		VectorEnv env = new VectorEnv(envs, config, 16,
+				ForkJoinPool.commonPool());
+		int[] actions = new int[envs];
+		int[] choices = { 0, InputSource.LEFT, InputSource.RIGHT,
+				InputSource.FIRE };
+		Random random = new Random(1);
+		long calls = Math.max(1, steps / envs), games = 0, kills = 0;
+
+		long start = System.nanoTime();
+		for (long call = 0; call < calls; call++)
+		{
+			for (int i = 0; i < envs; i++)
+			{
+				actions[i] = choices[random.nextInt(choices.length)];
+			}
+			env.step(actions);
+			for (int i = 0; i < envs; i++)
+			{
+				kills += env.reward[i];
+				games += env.done[i] ? 1 : 0;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("%d games x %d steps in %.3f s: %.0f steps/s on"
+				+ " %d threads%n", envs, calls, seconds, calls * envs
+				/ seconds, ForkJoinPool.commonPool().getParallelism());
+		System.out.printf("games finished: %d, kills: %d%n", games, kills);
+	}
+
+	/**
+	 * Runs the game with a snapshot and an off-screen draw after every tick,
+	 * warms it up until it stops allocating, and then checks that the steady
+	 * windows allocate nothing but what the JIT does while recompiling.
+	 * 
+	 * @param game
+	 *            The game to run.
+	 * @param ticks
+	 *            Twice the number of steady ticks to check. Warming up takes
+	 *            at most this many ticks.
+	 * @return Whether the steady windows allocated nothing the JIT didn't.
+	 */
+	private static boolean checkAllocations(GameSimulation game, long ticks)
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+		{
+			System.out.println("This JVM can't count allocated bytes");
+			return true;
+		}
+		com.sun.management.ThreadMXBean counter =
+				(com.sun.management.ThreadMXBean) threads;
+		long thread = Thread.currentThread().getId();
+		CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+		if (jit != null && !jit.isCompilationTimeMonitoringSupported())
+		{
+			jit = null;
+		}
+
+		GameRenderer renderer = new GameRenderer(game);
+		renderer.setSprites(new SpriteCache());
+		renderer.setDamage(new DamageRegion(game.FRAME_SIZE, game.FRAME_SIZE,
+				2));
+		BufferedImage image = new BufferedImage(game.FRAME_SIZE,
+				game.FRAME_SIZE, BufferedImage.TYPE_INT_RGB);
+		Graphics2D pen = image.createGraphics();
+		FrameSnapshot frame = new FrameSnapshot(game.MAX_LIVE_ENEMIES);
+
+		long steady = ticks - ticks / 2;
+		long window = Math.max(1, steady / ALLOC_WINDOWS);
+
+		// Warms up until a window neither allocates nor compiles, or for as
+		// many ticks as were asked for if it never settles.
+		long warmup = 0;
+		boolean settled = false;
+		while (!settled && warmup < ticks)
+		{
+			long bytes = counter.getThreadAllocatedBytes(thread);
+			long compiling = jit == null ? 0 : jit.getTotalCompilationTime();
+			runFrames(game, frame, renderer, pen, window);
+			warmup += window;
+			settled = counter.getThreadAllocatedBytes(thread) == bytes
+					&& (jit == null
+							|| jit.getTotalCompilationTime() == compiling);
+		}
+
+		// The JIT's time only goes up once it has compiled the code again,
+		// which can be a window after the one the bytes were allocated in,
+		// so a window's bytes wait to see whether the next one compiles.
+		long allocated = 0, recompiling = 0, waiting = 0;
+		int allocatingWindows = 0, windows = 0;
+		for (long done = 0; done < steady; done += window)
+		{
+			long bytes = counter.getThreadAllocatedBytes(thread);
+			long compiling = jit == null ? 0 : jit.getTotalCompilationTime();
+			runFrames(game, frame, renderer, pen, Math.min(window,
+					steady - done));
+			bytes = counter.getThreadAllocatedBytes(thread) - bytes;
+			windows++;
+
+			if (jit != null && jit.getTotalCompilationTime() != compiling)
+			{
+				recompiling += waiting + bytes;
+				bytes = 0;
+			} else if (waiting > 0)
+			{
+				allocated += waiting;
+				allocatingWindows++;
+			}
+			waiting = bytes;
+		}
+		if (waiting > 0)
+		{
+			allocated += waiting;
+			allocatingWindows++;
+		}
+		pen.dispose();
+
+		System.out.printf("warmed up for %d ticks, then %d bytes allocated"
+				+ " over %d steady ticks, in %d of %d windows, and %d bytes"
+				+ " while the JIT recompiled%n", warmup, allocated, steady,
+				allocatingWindows, windows, recompiling);
+		if (allocated > 0)
+		{
+			System.out.println("FAIL: the steady state allocates");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Runs ticks, each followed by a snapshot and a draw.
+	 */
+	private static void runFrames(GameSimulation game, FrameSnapshot frame,
+			GameRenderer renderer, Graphics2D pen, long ticks)
+	{
+		for (long i = 0; i < ticks; i++)
+		{
+			game.tick();
+			frame.capture(game);
+			renderer.drawFrame(pen, frame);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package Main;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * InputRecorder passes the input of another InputSource through to the game
+ * while writing it to a file, one byte per tick, so the session can be played
+ * back later with InputReplay.
+ * 
+ * The file is memory-mapped a chunk at a time, so recording a tick is a single
+ * put() into memory and the operating system writes it out in the background.
+ * When the recorder is closed the file is cut down to the ticks actually
+ * recorded.
+ * 
+ * The file starts with the MAGIC number and the FORMAT version, then the
+ * game's settings, as the length of the GameConfig.getSettings() text and the
+ * text in UTF-8, and then one input mask per tick. The same input only plays
+ * the same game with the same settings, so a replay is set up from them.
+ * Format 1 recordings were made while moving and firing at once wasn't
+ * possible, and format 2 recordings don't say what game they were made in, so
+ * neither is played back.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class InputRecorder implements InputSource
+{
+	// Identifies a recording, and the version of its layout. The header is
+	// MAGIC, FORMAT and the length of the settings, before the settings.
+	static final int MAGIC = 0x53495250, FORMAT = 3, HEADER_SIZE = 12;
+
+	// How much of the file is mapped at a time.
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	// Where the input really comes from.
+	private final InputSource source;
+
+	private final FileChannel channel;
+
+	// The mapped chunk being written, and where in the file it starts.
+	private MappedByteBuffer chunk;
+	private long chunkStart;
+
+	/**
+	 * Starts a new recording, replacing the file if it exists.
+	 * 
+	 * @param source
+	 *            Where the input is read from.
+	 * @param file
+	 *            The file to record to.
+	 * @param config
+	 *            The settings of the game being recorded.
+	 * @throws IOException
+	 *             If the file can't be created or mapped.
+	 */
+	public InputRecorder(InputSource source, Path file, GameConfig config)
+			throws IOException
+	{
+		this.source = source;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		map(0);
+		byte[] settings = config.getSettings()
+				.getBytes(StandardCharsets.UTF_8);
+		chunk.putInt(MAGIC);
+		chunk.putInt(FORMAT);
+		chunk.putInt(settings.length);
+		chunk.put(settings);
+	}
+
+	/**
+	 * Polls the real source and records what it returned.
+	 */
+	public synchronized int poll()
+	{
+		int input = source.poll();
+		if (chunk != null)
+		{
+			if (!chunk.hasRemaining())
+			{
+				try
+				{
+					map(chunkStart + CHUNK_SIZE);
+				} catch (IOException e)
+				{
+					System.err.println("Stopped recording input: "
+							+ e.getMessage());
+					close();
+					return input;
+				}
+			}
+			chunk.put((byte) input);
+		}
+		return input;
+	}
+
+	/**
+	 * Finishes the recording, cutting the file down to what was recorded.
+	 * Input keeps being passed through afterwards, but isn't recorded.
+	 */
+	public synchronized void close()
+	{
+		if (chunk == null)
+		{
+			return;
+		}
+		long length = chunkStart + chunk.position();
+		chunk.force();
+		chunk = null;
+		try
+		{
+			channel.truncate(length);
+			channel.close();
+		} catch (IOException e)
+		{
+			System.err.println("Can't finish the input recording: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Maps the next chunk of the file, growing the file to fit it.
+	 * 
+	 * @param start
+	 *            Where in the file the chunk starts.
+	 * @throws IOException
+	 *             If the chunk can't be mapped.
+	 */
+	private void map(long start) throws IOException
+	{
+		if (chunk != null)
+		{
+			chunk.force();
+		}
+		chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, CHUNK_SIZE);
+		chunkStart = start;
+	}
+}
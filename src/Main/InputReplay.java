@@ -0,0 +1,119 @@
+package Main;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * InputReplay plays back a session recorded by InputRecorder, handing the game
+ * the same input on the same ticks. The game does nothing random and keeps
+ * time in ticks, so a replay plays out exactly like the original session, no
+ * matter how fast the ticks are run, as long as it is played with the
+ * settings it was recorded with, which getConfig() gives.
+ * 
+ * The whole file is memory-mapped, so polling is a single get(). Once the
+ * recording runs out no keys are held.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class InputReplay implements InputSource
+{
+	private final MappedByteBuffer ticks;
+
+	// Where the ticks start, after the header and the settings.
+	private final int start;
+
+	// The settings the session was recorded with.
+	private final GameConfig config;
+
+	/**
+	 * Opens a recording.
+	 * 
+	 * @param file
+	 *            The file recorded by InputRecorder.
+	 * @throws IOException
+	 *             If the file can't be read, isn't a recording or its
+	 *             settings are bad.
+	 */
+	public InputReplay(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ))
+		{
+			ticks = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+
+		if (ticks.remaining() < InputRecorder.HEADER_SIZE
+				|| ticks.getInt() != InputRecorder.MAGIC)
+		{
+			throw new IOException(file + " is not an input recording");
+		}
+		int format = ticks.getInt();
+		if (format != InputRecorder.FORMAT)
+		{
+			throw new IOException(file + " has unknown format " + format);
+		}
+
+		int length = ticks.getInt();
+		if (length < 0 || length > ticks.remaining())
+		{
+			throw new IOException(file + " is cut off in its settings");
+		}
+		byte[] settings = new byte[length];
+		ticks.get(settings);
+		start = ticks.position();
+		try
+		{
+			config = GameConfig.parse(new String(settings,
+					StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e)
+		{
+			throw new IOException(file + " has bad settings: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the settings the session was recorded with, which it has to be
+	 * played with to play out the same.
+	 * 
+	 * @return The recorded settings.
+	 */
+	public GameConfig getConfig()
+	{
+		return config;
+	}
+
+	/**
+	 * Gets the recorded input for the next tick.
+	 */
+	public int poll()
+	{
+		return ticks.hasRemaining() ? ticks.get() : 0;
+	}
+
+	/**
+	 * Checks if every recorded tick has been played.
+	 * 
+	 * @return Whether the recording has run out.
+	 */
+	public boolean isFinished()
+	{
+		return !ticks.hasRemaining();
+	}
+
+	/**
+	 * Gets how many ticks the recording holds.
+	 * 
+	 * @return The number of recorded ticks.
+	 */
+	public int getLength()
+	{
+		return ticks.limit() - start;
+	}
+}
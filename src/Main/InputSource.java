@@ -0,0 +1,23 @@
+package Main;
+
+/**
+ * InputSource is where the game gets the player's input from. The game polls
+ * it exactly once at the start of every tick and gets back which keys are held
+ * down as a bitmask, so a whole session's input is just one small number per
+ * tick. That makes it easy to record a session and play it back exactly.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public interface InputSource
+{
+	// The bits of the input mask.
+	int LEFT = 1, RIGHT = 2, FIRE = 4, GO = 8;
+
+	/**
+	 * Gets the input for the next tick.
+	 * 
+	 * @return The keys held down, as a mask of LEFT, RIGHT, FIRE and GO.
+	 */
+	int poll();
+}
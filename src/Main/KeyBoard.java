@@ -4,68 +4,181 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 
 /**
- * This class gets gets key inputs from the user, and modifies its data members
- * accordingly.
- * 
+ * This class gets gets key inputs from the user and hands them to the game. As
+ * an InputSource it hands the keys held down to the game once per tick.
+ *
+ * Key presses and releases are not written into shared fields. Each one is
+ * put on a KeyEventRing with the time it happened, and poll() applies every
+ * event up to the end of the tick being simulated. A key that was pressed at
+ * any point during a tick counts as held for that tick, even if it was let go
+ * again before the tick ran, so short taps are never lost.
+ *
  * @author Mason Dumaine
  *
  */
-public class KeyBoard extends KeyAdapter
+public class KeyBoard extends KeyAdapter implements InputSource
 {
-	// Boolean values for whether or not the key is pressed.
-	public boolean left = false, right = false, fire = false, go = false;
+	// Added to a key's bit in the ring when it is pressed rather than let go.
+	private static final int PRESSED = 1 << 8, KEYS = PRESSED - 1;
+
+	// Events waiting for the game, from the AWT event thread.
+	private final KeyEventRing events = new KeyEventRing(256);
+
+	// The keys held down as the event thread last saw them, and whether an
+	// event had to be dropped because the ring was full. After a drop the game
+	// falls back on held instead of the events.
+	private volatile int held = 0;
+	private volatile boolean overflowed = false;
+
+	// The keys held down as of the last poll(), and the time up to which the
+	// next poll() applies events. Only touched by the game loop.
+	private int state = 0;
+	private long tickTime = Long.MAX_VALUE;
+
+	// Flipped each time F3 is pressed, to show or hide the frame stats.
+	public volatile boolean showStats = false;
 
 	/**
-	 * This checks the key event for valid keypresses and sets the corresponding
-	 * data member.
+	 * This checks the key event for valid keypresses and queues them for the
+	 * game.
 	 */
 	public void keyPressed(KeyEvent event)
 	{
-		if (event.getKeyCode() == 65)
+		int key = keyFor(event.getKeyCode());
+		if (key != 0)
 		{
-			left = true;
+			// Holding a key down repeats the press, which the game doesn't
+			// need to hear about.
+			if ((held & key) == 0)
+			{
+				press(key);
+			}
 		}
 
-		else if (event.getKeyCode() == 68)
+		else if (event.getKeyCode() == KeyEvent.VK_F3)
 		{
-			right = true;
+			showStats = !showStats;
 		}
+	}
 
-		else if (event.getKeyCode() == 82)
+	/**
+	 * This ensures that when the key is released, the game hears about that
+	 * change.
+	 */
+	public void keyReleased(KeyEvent event)
+	{
+		int key = keyFor(event.getKeyCode());
+		if (key != 0)
 		{
-			go = true;
+			release(key);
 		}
+	}
 
-		else if (event.getKeyCode() == 32)
+	/**
+	 * Presses keys, as if the user had. Only one thread at a time may press
+	 * and release keys.
+	 *
+	 * @param keys
+	 *            The keys, as a mask of InputSource.LEFT, RIGHT, FIRE and GO.
+	 */
+	public void press(int keys)
+	{
+		held |= keys;
+		queue(keys | PRESSED);
+	}
+
+	/**
+	 * Lets go of keys, as if the user had.
+	 *
+	 * @param keys
+	 *            The keys, as a mask of InputSource.LEFT, RIGHT, FIRE and GO.
+	 */
+	public void release(int keys)
+	{
+		held &= ~keys;
+		queue(keys);
+	}
+
+	/**
+	 * Sets the time at which the next tick ends. Events that happen after it
+	 * are left for the tick after. Until this is called every waiting event
+	 * is applied.
+	 *
+	 * @param nanos
+	 *            The end of the next tick, on the System.nanoTime() clock.
+	 */
+	public void setTickTime(long nanos)
+	{
+		tickTime = nanos;
+	}
+
+	/**
+	 * Applies the events that happened before the end of the tick, and gets
+	 * the keys that were held down at any point during it.
+	 */
+	public int poll()
+	{
+		int pressed = 0;
+		while (events.hasNext() && events.nextTime() < tickTime)
 		{
-			fire = true;
+			int event = events.next();
+			if ((event & PRESSED) != 0)
+			{
+				state |= event & KEYS;
+				pressed |= event & KEYS;
+			} else
+			{
+				state &= ~event;
+			}
 		}
+
+		if (overflowed)
+		{
+			overflowed = false;
+			state = held;
+		}
+		return state | pressed;
 	}
 
 	/**
-	 * This ensures that when the key is released, data members reflect that
-	 * change.
+	 * Puts an event on the ring, stamped with the current time.
 	 */
-	public void keyReleased(KeyEvent event)
+	private void queue(int event)
+	{
+		if (!events.offer(System.nanoTime(), event))
+		{
+			overflowed = true;
+		}
+	}
+
+	/**
+	 * Finds which of the game's keys a key code is.
+	 *
+	 * @param keyCode
+	 *            The code of the key from the KeyEvent.
+	 * @return Its InputSource bit, or 0 if the game doesn't use it.
+	 */
+	private static int keyFor(int keyCode)
 	{
-		if (event.getKeyCode() == 65)
+		if (keyCode == 65)
 		{
-			left = false;
+			return LEFT;
 		}
 
-		else if (event.getKeyCode() == 68)
+		else if (keyCode == 68)
 		{
-			right = false;
+			return RIGHT;
 		}
 
-		else if (event.getKeyCode() == 82)
+		else if (keyCode == 82)
 		{
-			go = false;
+			return GO;
 		}
 
-		else if (event.getKeyCode() == 32)
+		else if (keyCode == 32)
 		{
-			fire = false;
+			return FIRE;
 		}
+		return 0;
 	}
 }
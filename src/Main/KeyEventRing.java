@@ -0,0 +1,111 @@
+package Main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * KeyEventRing is a fixed size queue of timestamped key events, passed from
+ * one producer thread (the AWT event thread) to one consumer thread (the game
+ * loop) without locking. Each side only ever writes its own counter, and
+ * publishes it with lazySet() once the slot it covers is written or read, so
+ * neither side ever waits for the other.
+ * 
+ * An event is just an int, so the ring stores two primitive arrays and never
+ * allocates after it is made.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class KeyEventRing
+{
+	private final long[] times;
+	private final int[] events;
+	private final int mask;
+
+	// The next slot to read, written only by the consumer, and the next slot
+	// to write, written only by the producer. Both only ever grow.
+	private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+
+	// The producer's last look at head, so it only reads the consumer's
+	// counter when the ring seems full.
+	private long cachedHead = 0;
+
+	/**
+	 * Creates an empty ring.
+	 * 
+	 * @param capacity
+	 *            How many events it can hold. Must be a power of two.
+	 */
+	public KeyEventRing(int capacity)
+	{
+		if (Integer.bitCount(capacity) != 1)
+		{
+			throw new IllegalArgumentException(
+					"capacity must be a power of two: " + capacity);
+		}
+		times = new long[capacity];
+		events = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Adds an event. Only the producer thread may call this.
+	 * 
+	 * @param time
+	 *            When the event happened, from System.nanoTime().
+	 * @param event
+	 *            The event.
+	 * @return Whether it was added, or false if the ring is full.
+	 */
+	public boolean offer(long time, int event)
+	{
+		long t = tail.get();
+		if (t - cachedHead > mask)
+		{
+			cachedHead = head.get();
+			if (t - cachedHead > mask)
+			{
+				return false;
+			}
+		}
+		int index = (int) t & mask;
+		times[index] = time;
+		events[index] = event;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Checks if there is an event to read. Only the consumer thread may call
+	 * this.
+	 * 
+	 * @return Whether the ring holds an event.
+	 */
+	public boolean hasNext()
+	{
+		return head.get() != tail.get();
+	}
+
+	/**
+	 * Gets when the next event happened, without removing it. Only call this
+	 * when hasNext() is true.
+	 * 
+	 * @return The time of the next event.
+	 */
+	public long nextTime()
+	{
+		return times[(int) head.get() & mask];
+	}
+
+	/**
+	 * Removes the next event. Only call this when hasNext() is true.
+	 * 
+	 * @return The event.
+	 */
+	public int next()
+	{
+		long h = head.get();
+		int event = events[(int) h & mask];
+		head.lazySet(h + 1);
+		return event;
+	}
+}
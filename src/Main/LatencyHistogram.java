@@ -0,0 +1,135 @@
+package Main;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram counts nanosecond timings in buckets so that percentiles can
+ * be read back without keeping every sample. Each power of two range is split
+ * into SUB_BUCKETS equal buckets, so a percentile is accurate to within about
+ * 1 / SUB_BUCKETS of its value. Recording a sample is a couple of bit
+ * operations and an array increment, and never allocates.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class LatencyHistogram
+{
+	// Each power of two range is split into this many buckets.
+	private static final int SUB_BITS = 4, SUB_BUCKETS = 1 << SUB_BITS;
+
+	// One group of sub buckets for every bit of a long.
+	private final long[] counts = new long[64 * SUB_BUCKETS];
+
+	private long total = 0, max = 0;
+
+	/**
+	 * Records one sample.
+	 * 
+	 * @param nanos
+	 *            The timing to record. Negative values count as 0.
+	 */
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+		{
+			nanos = 0;
+		}
+		counts[bucketOf(nanos)]++;
+		total++;
+		if (nanos > max)
+		{
+			max = nanos;
+		}
+	}
+
+	/**
+	 * Gets the value below which the passed fraction of the samples fall.
+	 * 
+	 * @param fraction
+	 *            The fraction, for example 0.99 for the 99th percentile.
+	 * @return The upper edge of the bucket holding that percentile, or 0 if
+	 *         there are no samples.
+	 */
+	public long percentile(double fraction)
+	{
+		long wanted = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= wanted && seen > 0)
+			{
+				return Math.min(upperEdge(i), max);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * A simple getter for the largest sample.
+	 * 
+	 * @return The largest sample recorded since the last reset.
+	 */
+	public long getMax()
+	{
+		return max;
+	}
+
+	/**
+	 * A simple getter for the number of samples.
+	 * 
+	 * @return The number of samples recorded since the last reset.
+	 */
+	public long getCount()
+	{
+		return total;
+	}
+
+	/**
+	 * Forgets every sample.
+	 */
+	public void reset()
+	{
+		Arrays.fill(counts, 0);
+		total = max = 0;
+	}
+
+	/**
+	 * Finds the bucket for a value. Values below SUB_BUCKETS get a bucket
+	 * each, and above that the highest bit picks the group and the next
+	 * SUB_BITS bits pick the bucket inside it.
+	 * 
+	 * @param value
+	 *            A value of 0 or more.
+	 * @return The bucket index.
+	 */
+	private static int bucketOf(long value)
+	{
+		if (value < SUB_BUCKETS)
+		{
+			return (int) value;
+		}
+		int high = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (high - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (high - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Finds the largest value that falls into a bucket.
+	 * 
+	 * @param bucket
+	 *            The bucket index.
+	 * @return The largest value in the bucket.
+	 */
+	private static long upperEdge(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		int high = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		long low = (1L << high) | (sub << (high - SUB_BITS));
+		return low + (1L << (high - SUB_BITS)) - 1;
+	}
+}
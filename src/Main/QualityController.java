@@ -0,0 +1,145 @@
+package Main;
+
+/**
+ * QualityController keeps the window drawing on time when the machine is
+ * loaded. It watches how long recent frames took to draw and, while they take
+ * longer than a tick, lowers the quality one step at a time: first it only
+ * lets every other frame be drawn, while the game keeps ticking at full
+ * speed; then it leaves out the shots' pulse rings; then the ships'
+ * thrusters. Once frames are drawn well within the budget of the step above,
+ * it raises the quality again, one step at a time.
+ * 
+ * A decision is made once every WINDOW frames, from their average, so a
+ * single slow frame doesn't change anything. The budget to step back up to
+ * is lower than the budget to step down from, so the quality doesn't flip
+ * back and forth around one frame time.
+ * 
+ * frameDrawn() is called by whichever thread draws, and shouldDraw() by the
+ * game loop; the level is the only thing they share.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class QualityController
+{
+	// The quality levels, from best to worst.
+	public static final int FULL = 0, SKIP_FRAMES = 1, NO_PULSES = 2,
+			NO_THRUSTERS = 3;
+
+	// How many frames each decision is averaged over.
+	private static final int WINDOW = 30;
+
+	// How far under the budget of the level above the average has to be to
+	// step back up to it.
+	private static final double HEADROOM = 0.75;
+
+	// How long drawing a frame may take when every tick is drawn.
+	private final long frameBudget;
+
+	// The current level, set by the drawing thread.
+	private volatile int level = FULL;
+
+	// The frames drawn so far in this window, and how long they took.
+	private int windowFrames;
+	private long windowNanos;
+
+	// Whether the last frame offered to shouldDraw() was skipped.
+	private boolean skipped;
+
+	/**
+	 * Creates a controller at full quality.
+	 * 
+	 * @param frameBudget
+	 *            How long drawing one frame may take, in nanoseconds, which is
+	 *            normally the length of a tick.
+	 */
+	public QualityController(long frameBudget)
+	{
+		this.frameBudget = frameBudget;
+	}
+
+	/**
+	 * Records how long a frame took to draw, and changes the level at the end
+	 * of each window.
+	 * 
+	 * @param nanos
+	 *            How long the frame took, in nanoseconds.
+	 */
+	public void frameDrawn(long nanos)
+	{
+		windowNanos += nanos;
+		if (++windowFrames < WINDOW)
+		{
+			return;
+		}
+		long average = windowNanos / windowFrames;
+		windowFrames = 0;
+		windowNanos = 0;
+
+		int current = level;
+		if (average > budget(current) && current < NO_THRUSTERS)
+		{
+			level = current + 1;
+		} else if (current > FULL
+				&& average < budget(current - 1) * HEADROOM)
+		{
+			level = current - 1;
+		}
+	}
+
+	/**
+	 * Decides whether the frame for the ticks just run should be drawn. Only
+	 * called by the game loop.
+	 * 
+	 * @return False for every other frame while frames are being skipped.
+	 */
+	public boolean shouldDraw()
+	{
+		if (level < SKIP_FRAMES)
+		{
+			skipped = false;
+			return true;
+		}
+		skipped = !skipped;
+		return !skipped;
+	}
+
+	/**
+	 * Whether the shots' pulse rings should be drawn.
+	 * 
+	 * @return True above the NO_PULSES level.
+	 */
+	public boolean drawPulses()
+	{
+		return level < NO_PULSES;
+	}
+
+	/**
+	 * Whether the ships' thrusters should be drawn.
+	 * 
+	 * @return True above the NO_THRUSTERS level.
+	 */
+	public boolean drawThrusters()
+	{
+		return level < NO_THRUSTERS;
+	}
+
+	/**
+	 * The current quality level.
+	 * 
+	 * @return FULL, SKIP_FRAMES, NO_PULSES or NO_THRUSTERS.
+	 */
+	public int getLevel()
+	{
+		return level;
+	}
+
+	/**
+	 * How long a frame may take to draw at a level: one tick, or two once
+	 * every other frame is skipped.
+	 */
+	private long budget(int level)
+	{
+		return level >= SKIP_FRAMES ? frameBudget * 2 : frameBudget;
+	}
+}
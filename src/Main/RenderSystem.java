@@ -0,0 +1,90 @@
+package Main;
+
+import java.awt.Color;
+
+import GameObjects.ColliderStore;
+import GameObjects.EntityStore;
+import GameObjects.PositionStore;
+import GameObjects.RenderStore;
+import GameObjects.SpaceShip;
+
+/**
+ * RenderSystem is the drawing side of the entity systems. The frame is drawn
+ * on the render thread from a FrameSnapshot, so what this system does on the
+ * game's thread is copy the position, collider and render state components of
+ * each archetype into the snapshot's arrays, which GameRenderer and
+ * DrawBatcher then draw. It reads the component arrays straight through, in
+ * slot order, without going through the views.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class RenderSystem
+{
+	/**
+	 * Copies the visible ships of an archetype into a snapshot, in place of
+	 * the ships it held.
+	 * 
+	 * @param ships
+	 *            The ships, with position, collider and render components.
+	 * @param frame
+	 *            The snapshot to fill.
+	 */
+	public static void captureShips(EntityStore<?> ships, FrameSnapshot frame)
+	{
+		int count = ships.size();
+		if (count > frame.shipX.length)
+		{
+			frame.growShips(count * 2);
+		}
+
+		PositionStore position = ships.position;
+		int[] size = ships.collider.size, anim = ships.render.anim;
+		Color[] color = ships.render.color;
+		int[] flags = ships.flags;
+		int shown = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if ((flags[i] & EntityStore.VISIBLE) != 0)
+			{
+				frame.shipX[shown] = position.x[i];
+				frame.shipY[shown] = position.y[i];
+				frame.shipSize[shown] = size[i];
+				frame.shipDirection[shown] = SpaceShip.direction(
+						position.xVel[i], position.yVel[i]);
+				frame.shipThrust[shown] = anim[i];
+				frame.shipColor[shown] = color[i];
+				shown++;
+			}
+		}
+		frame.shipCount = shown;
+	}
+
+	/**
+	 * Copies every shot of an archetype into a snapshot, in place of the
+	 * shots it held.
+	 * 
+	 * @param shots
+	 *            The shots, with position, collider and render components.
+	 * @param frame
+	 *            The snapshot to fill.
+	 */
+	public static void captureShots(EntityStore<?> shots, FrameSnapshot frame)
+	{
+		int count = shots.size();
+		if (count > frame.shotX.length)
+		{
+			frame.growShots(count * 2);
+		}
+
+		PositionStore position = shots.position;
+		ColliderStore collider = shots.collider;
+		RenderStore render = shots.render;
+		System.arraycopy(position.x, 0, frame.shotX, 0, count);
+		System.arraycopy(position.y, 0, frame.shotY, 0, count);
+		System.arraycopy(collider.size, 0, frame.shotSize, 0, count);
+		System.arraycopy(render.anim, 0, frame.shotPulse, 0, count);
+		System.arraycopy(render.color, 0, frame.shotColor, 0, count);
+		frame.shotCount = count;
+	}
+}
@@ -0,0 +1,93 @@
+package Main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SnapshotExchanger passes FrameSnapshots from the simulation thread to the
+ * render thread without either of them ever waiting on a lock. It is a triple
+ * buffer: the simulation fills the back snapshot, the renderer draws the front
+ * one, and the third sits in the middle holding the newest finished frame.
+ * 
+ * Publishing swaps the back and middle snapshots, and taking swaps the middle
+ * and front ones, each with a single atomic getAndSet(). The simulation never
+ * blocks, even if the renderer falls behind; frames the renderer doesn't get
+ * to in time are simply overwritten.
+ * 
+ * Only one thread may publish and only one thread may take.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class SnapshotExchanger
+{
+	// The low bits of the middle index say which snapshot is in the middle, and
+	// FRESH is set while the renderer hasn't taken it yet.
+	private static final int INDEX_MASK = 3, FRESH = 4;
+
+	private final FrameSnapshot[] snapshots = new FrameSnapshot[3];
+
+	// Which snapshot is in the middle, plus the FRESH bit.
+	private final AtomicInteger middle = new AtomicInteger(1);
+
+	// Only touched by the publishing and taking threads, respectively.
+	private int back = 0, front = 2;
+
+	/**
+	 * Creates an exchanger with three empty snapshots.
+	 * 
+	 * @param capacity
+	 *            How many ships and shots each snapshot starts with room for.
+	 */
+	public SnapshotExchanger(int capacity)
+	{
+		for (int i = 0; i < snapshots.length; i++)
+		{
+			snapshots[i] = new FrameSnapshot(capacity);
+		}
+	}
+
+	/**
+	 * Gets the snapshot to fill with the next frame. Only the publishing
+	 * thread may call this.
+	 * 
+	 * @return The back snapshot.
+	 */
+	public FrameSnapshot back()
+	{
+		return snapshots[back];
+	}
+
+	/**
+	 * Hands the back snapshot to the renderer and takes over whichever
+	 * snapshot was in the middle for the next frame.
+	 */
+	public void publish()
+	{
+		back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+	}
+
+	/**
+	 * Checks if a frame has been published since the last take().
+	 * 
+	 * @return Whether there is a new frame.
+	 */
+	public boolean hasFresh()
+	{
+		return (middle.get() & FRESH) != 0;
+	}
+
+	/**
+	 * Gets the newest published frame. If nothing new has been published,
+	 * the frame from the last call is returned again.
+	 * 
+	 * @return The front snapshot, which stays untouched until the next call.
+	 */
+	public FrameSnapshot take()
+	{
+		if (hasFresh())
+		{
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return snapshots[front];
+	}
+}
@@ -0,0 +1,210 @@
+package Main;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+
+import GameObjects.SpriteCache;
+
+/**
+ * SoakRunner lets the Autopilot play game after game without a window, for
+ * as long as it is told to, to find memory growth and tick time drift that
+ * only show up after hours. It runs as fast as it can, timing every tick,
+ * and prints a progress line every minute so that a run cut short still
+ * leaves a record. At the end it reports the throughput, the tick times, the
+ * heap in use before and after, and how often and how long each garbage
+ * collector ran.
+ * 
+ * With -render, every tick is also copied into a FrameSnapshot and drawn into
+ * an off-screen image, the same way the window does it, so the renderer is
+ * soaked too.
+ * 
+ * Usage: java Main.SoakRunner [-minutes n] [-render] [config arguments]
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class SoakRunner
+{
+	// How long a run lasts when no length is given, and how often progress
+	// is printed.
+	private static final long DEFAULT_MINUTES = 1,
+			PROGRESS_NANOS = 60000000000L;
+
+	// The longest run, a year, well short of where the end time in
+	// nanoseconds would overflow.
+	private static final double MAX_MINUTES = 60 * 24 * 365;
+
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+
+		double minutes = DEFAULT_MINUTES;
+		boolean render = false;
+		ArrayList<String> configArgs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-minutes"))
+			{
+				minutes = i + 1 < args.length
+						&& args[i + 1].matches("\\d{1,9}(\\.\\d{1,9})?")
+								? Double.parseDouble(args[++i]) : 0;
+				if (minutes <= 0 || minutes > MAX_MINUTES)
+				{
+					usage("-minutes needs a number of minutes above 0 and"
+							+ " at most " + (long) MAX_MINUTES);
+				}
+			} else if (args[i].equals("-render"))
+			{
+				render = true;
+			} else
+			{
+				configArgs.add(args[i]);
+			}
+		}
+		GameConfig config;
+		try
+		{
+			config = GameConfig.load(configArgs.toArray(new String[0]));
+		} catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		Autopilot autopilot = new Autopilot();
+		GameSimulation game = new GameSimulation(autopilot, config);
+		autopilot.watch(game);
+
+		GameRenderer renderer = null;
+		FrameSnapshot frame = null;
+		Graphics2D pen = null;
+		if (render)
+		{
+			renderer = new GameRenderer(game);
+			renderer.setSprites(new SpriteCache());
+			renderer.setDamage(new DamageRegion(game.FRAME_SIZE,
+					game.FRAME_SIZE, 2));
+			frame = new FrameSnapshot(game.MAX_LIVE_ENEMIES);
+			pen = new BufferedImage(game.FRAME_SIZE, game.FRAME_SIZE,
+					BufferedImage.TYPE_INT_RGB).createGraphics();
+		}
+
+		long heapBefore = usedHeapAfterGc();
+		LatencyHistogram ticks = new LatencyHistogram(),
+				recent = new LatencyHistogram();
+		long wins = 0, losses = 0, kills = 0;
+		int lastKills = 0;
+		boolean wasOver = false;
+
+		long start = System.nanoTime();
+		long end = start + (long) (minutes * 60e9);
+		long nextProgress = start + PROGRESS_NANOS, recentStart = start;
+		long now = start;
+		while (now < end)
+		{
+			game.tick();
+			if (render)
+			{
+				frame.capture(game);
+				renderer.drawFrame(pen, frame);
+			}
+			long done = System.nanoTime();
+			ticks.record(done - now);
+			recent.record(done - now);
+			now = done;
+
+			// A restart sets the kill counter back to 0.
+			int killCounter = game.getKillCounter();
+			kills += Math.max(0, killCounter - lastKills);
+			lastKills = killCounter;
+			if (game.isOver() && !wasOver)
+			{
+				if (game.hasPlayerWon())
+				{
+					wins++;
+				} else
+				{
+					losses++;
+				}
+			}
+			wasOver = game.isOver();
+
+			if (now >= nextProgress)
+			{
+				System.out.printf("%6.1f min: %.0f ticks/s, tick p99 %d us,"
+						+ " max %d us, heap %d KiB%n", (now - start) / 60e9,
+						recent.getCount() * 1e9 / (now - recentStart),
+						recent.percentile(0.99) / 1000,
+						recent.getMax() / 1000, usedHeap() / 1024);
+				recent.reset();
+				recentStart = now;
+				nextProgress += PROGRESS_NANOS;
+			}
+		}
+		if (pen != null)
+		{
+			pen.dispose();
+		}
+
+		double seconds = (now - start) / 1e9;
+		System.out.printf("%d ticks in %.1f s: %.0f ticks/s%n",
+				ticks.getCount(), seconds, ticks.getCount() / seconds);
+		System.out.printf("games won: %d, lost: %d, kills: %d%n", wins,
+				losses, kills);
+		System.out.printf("tick time: p50 %d us, p99 %d us, p99.9 %d us,"
+				+ " max %d us%n", ticks.percentile(0.5) / 1000,
+				ticks.percentile(0.99) / 1000,
+				ticks.percentile(0.999) / 1000, ticks.getMax() / 1000);
+		System.out.printf("heap in use after GC: %d KiB before, %d KiB"
+				+ " after%n", heapBefore / 1024, usedHeapAfterGc() / 1024);
+		for (GarbageCollectorMXBean gc : ManagementFactory
+				.getGarbageCollectorMXBeans())
+		{
+			System.out.printf("%s: %d collections, %d ms%n", gc.getName(),
+					gc.getCollectionCount(), gc.getCollectionTime());
+		}
+	}
+
+	/**
+	 * Prints what went wrong and how to run the program, and exits with
+	 * status 1.
+	 * 
+	 * @param problem
+	 *            What was wrong with the arguments.
+	 */
+	private static void usage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println("Usage: java Main.SoakRunner [-minutes n]"
+				+ " [-render] [config arguments]");
+		System.exit(1);
+	}
+
+	/**
+	 * Gets the heap in use right now, garbage included.
+	 * 
+	 * @return The bytes of heap in use.
+	 */
+	private static long usedHeap()
+	{
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Collects the garbage and then gets the heap in use, which is what the
+	 * program really holds on to.
+	 * 
+	 * @return The bytes of heap in use.
+	 */
+	private static long usedHeapAfterGc()
+	{
+		System.gc();
+		return usedHeap();
+	}
+}
@@ -1,73 +1,170 @@
 package Main;
 
 import java.awt.Canvas;
-import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Font;
-import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
-import GameObjects.GameObject;
-import GameObjects.Projectile;
-import GameObjects.SpaceShip;
-
+import GameObjects.SpriteCache;
+
+/**
+ * SpaceInvaders is the game window. It runs a GameSimulation on a fixed
+ * timestep and draws it to a Canvas.
+ * 
+ * Drawing happens on a separate render thread. After each batch of ticks the
+ * game loop copies the game into a FrameSnapshot and publishes it through a
+ * SnapshotExchanger; the render thread wakes up, takes the newest snapshot and
+ * draws it while the game loop moves on to the next tick. Setting the
+ * invaders.renderThread property to false draws on the game loop's thread
+ * instead, from the same snapshots.
+ * 
+ * Setting the invaders.record property to a file records every tick's input
+ * to it, and setting invaders.replay to a recording plays it back in place of
+ * the keyboard, in a game with the settings it was recorded with. Setting
+ * invaders.autopilot to true lets the Autopilot play in place of the keyboard.
+ * 
+ * Setting invaders.capture to a directory saves every tick there as a PNG
+ * image, on invaders.capture.threads background threads (2 by default),
+ * dropping frames rather than slowing the game down when they fall behind.
+ * 
+ * When frames take longer than a tick to draw, a QualityController skips
+ * every other frame and then leaves out decoration until they don't. Setting
+ * the invaders.adaptive property to false always draws at full quality.
+ * 
+ * @author Mason Dumaine
+ *
+ */
 @SuppressWarnings("serial")
 public class SpaceInvaders extends Canvas
 {
-	// DO NOT MODIFY: these change based on the game state.
-	private boolean runGame = false, initComplete = false, showStart = true,
-			endGame = false, playerWon = false;
+	// DO NOT MODIFY: set once the window is ready.
+	private boolean initComplete = false;
 
 	// Allows for smoother animation by drawing to
 	// an off-screen buffer first.
 	private BufferStrategy strategy;
 
-	// Keeps track of the number of enemy kills, and the time between each shot.
-	private int killCounter = 0, lastShotTime = 0;
-
-	// The default colors of all the objects.
-	private final Color SHOT_COLOR = Color.blue, PLAYER_COLOR = Color.white,
-			ENEMY_COLOR = Color.red;
-
-	// The font used for the text elements of the game.
-	private Font gameFont = new Font("TimesRoman", Font.PLAIN, 32);
-
-	private final int FRAME_SIZE = 1000, SLEEP_TIME = 10, // The number of ms
-															// between frames.
-			TOTAL_ENEMIES = 200, // The total size of the wave of enemies
-			PLAYER_SPEED = FRAME_SIZE / 250, // Must be positive integer
-			ENEMY_SPEED = FRAME_SIZE / 500, // Must be positive integer
-			PROJECTILE_SPEED = FRAME_SIZE / 200, // Must be positive integer
-			SHIP_SIZE = 25, // The physical size of all ships
-			SHOT_SIZE = 8, // The physical size of projectiles
-			RATE_OF_FIRE = 650, // Time between shots in milliseconds
-			// Triggers the lose condition
-			GAME_OVER_TRIGGER_YPOS = FRAME_SIZE - SHIP_SIZE * 4,
-			// The location of the x axis on which the player moves.
-			PLAYER_YAXIS_POS = FRAME_SIZE - SHIP_SIZE * 2;
-
 	// Keyboard object that handles user input.
 	public KeyBoard keyboard = new KeyBoard();
 
-	// Instantiation of our game objects.
-	private GameObject player = new SpaceShip(FRAME_SIZE / 2, PLAYER_YAXIS_POS,
-			SHIP_SIZE, PLAYER_COLOR);
+	// Plays the game when the invaders.autopilot property is true, or null.
+	private final Autopilot autopilot = "true"
+			.equals(System.getProperty("invaders.autopilot"))
+					? new Autopilot() : null;
+
+	// Where the game's input comes from: the keyboard or the autopilot,
+	// possibly recorded, or a recording being played back.
+	private final InputSource input;
+
+	// The game itself.
+	private final GameSimulation game;
+
+	// Draws the game into the back buffer.
+	private final GameRenderer renderer;
+
+	// Whether to draw with pre-rendered sprites, on unless the
+	// invaders.sprites property is set to false.
+	private final boolean useSprites = !"false"
+			.equals(System.getProperty("invaders.sprites"));
+
+	// Whether to group shape by shape drawing by color when sprites are off,
+	// on unless the invaders.batch property is set to false.
+	private final boolean useBatching = !"false"
+			.equals(System.getProperty("invaders.batch"));
+
+	// Whether to only blank the damaged parts of each frame, on unless the
+	// invaders.dirtyRects property is set to false.
+	private final boolean useDirtyRects = !"false"
+			.equals(System.getProperty("invaders.dirtyRects"));
+
+	// Whether to draw on a separate render thread, on unless the
+	// invaders.renderThread property is set to false.
+	private final boolean useRenderThread = !"false"
+			.equals(System.getProperty("invaders.renderThread"));
+
+	// Lowers the drawing quality when frames take too long, or null to
+	// always draw at full quality. On unless the invaders.adaptive property
+	// is set to false.
+	private final QualityController quality;
+
+	// Saves every tick as an image when the invaders.capture property names
+	// a directory, or null.
+	private FrameCapture capture;
+
+	// Copied from the game for setting up the window.
+	private final int FRAME_SIZE;
+
+	// Hands snapshots of the game from the game loop to the render thread.
+	private final SnapshotExchanger exchanger;
 
-	private GameObject[] enemies = new SpaceShip[TOTAL_ENEMIES];
+	// The thread drawing the snapshots, or null to draw on the game loop.
+	private Thread renderThread;
 
-	private GameObject[] shots = new Projectile[0];
+	// The length of one simulation tick, and the most ticks we will run to
+	// catch up after a stall before giving up on the lost time.
+	private final long TICK_NANOS;
+	private final int MAX_CATCH_UP_TICKS = 5;
+
+	// How many captured frames can wait for the encoders.
+	private final int CAPTURE_BUFFERED = 32;
+
+	// Waits out the time between frames. The last half millisecond is spun.
+	private FramePacer pacer = new FramePacer(500000L);
+
+	// Frame timing, or null while it is turned off. Setting the
+	// invaders.stats.file property turns it on from the start and appends a
+	// summary to that file every second; F3 turns it on and off in game.
+	private volatile FrameStats stats;
+	private final String statsFile =
+			System.getProperty("invaders.stats.file");
+
+	/**
+	 * Creates a window playing the original game.
+	 */
+	public SpaceInvaders()
+	{
+		this(new GameConfig());
+	}
 
 	/**
 	 * The constructor for the game is responsible for setting up the frame,
 	 * adding a new panel to it, and setting up various other boilerplate code
 	 * for smooth animation.
 	 * 
+	 * @param config
+	 *            The size and speed of the game. A recording being played
+	 *            back uses the settings it was recorded with instead.
 	 */
-	public SpaceInvaders()
+	public SpaceInvaders(GameConfig config)
 	{
+		input = openInput(autopilot != null ? autopilot : keyboard, config);
+		if (input instanceof InputReplay)
+		{
+			GameConfig recorded = ((InputReplay) input).getConfig();
+			if (!recorded.getSettings().equals(config.getSettings()))
+			{
+				System.err.println("Playing the recording with the settings"
+						+ " it was recorded with");
+			}
+			config = recorded;
+		}
+		game = new GameSimulation(input, config);
+		if (autopilot != null)
+		{
+			autopilot.watch(game);
+		}
+		renderer = new GameRenderer(game);
+		FRAME_SIZE = game.FRAME_SIZE;
+		TICK_NANOS = game.SLEEP_TIME * 1000000L;
+		exchanger = new SnapshotExchanger(game.MAX_LIVE_ENEMIES);
+		quality = "false".equals(System.getProperty("invaders.adaptive"))
+				? null : new QualityController(TICK_NANOS);
+
 		// Set up all the frame stuff.
 		JFrame frame = new JFrame("Space Invaders");
 
@@ -92,520 +189,301 @@ public class SpaceInvaders extends Canvas
 		// Instantiates the bufferStrategy.
 		strategy = getBufferStrategy();
 
-		// The player should be both visible and moveable.
-		((SpaceShip) player).setIsMoving(true);
-		((SpaceShip) player).setIsVisible(true);
-
-		// Fill the enemy array with enemies.
-		enemies = fillEnemyArray();
-
-		// We're done, the gameLoop can run safely.
-		initComplete = true;
-	}
-
-	/**
-	 * gameLoop() loops through all of the updating and drawing of the game for
-	 * each frame.
-	 */
-	public void gameLoop()
-	{
-		// If everything is ready.
-		while (initComplete)
+		if (useSprites)
 		{
-			// Creates a new graphics2d object using the bufferStrategy.
-			Graphics2D pen = (Graphics2D) strategy.getDrawGraphics();
-
-			// Blanks the frame with black to allow us to draw new objects.
-			pen.setColor(Color.black);
-			pen.fillRect(0, 0, FRAME_SIZE, FRAME_SIZE);
-
-			// Shows the first screen.
-			if (!runGame && showStart)
-			{
-				showScreenMessage("PRESS \'R\' TO START", pen, FRAME_SIZE / 2);
-				if (keyboard.go)
-				{
-					runGame = true;
-					showStart = false;
-				}
-			}
-
-			// Determines whether to show a lose or win screen.
-			if (!runGame && endGame)
-			{
-				if (keyboard.go)
-				{
-					killCounter = 0;
-					enemies = fillEnemyArray();
-					player = new SpaceShip(FRAME_SIZE / 2, PLAYER_YAXIS_POS,
-							SHIP_SIZE, PLAYER_COLOR);
-					((SpaceShip) player).setIsVisible(true);
-					((SpaceShip) player).setIsMoving(true);
-
-					runGame = true;
-					showStart = false;
-					endGame = false;
-				} else if (playerWon)
-				{
-					showScreenMessage("YOU WIN", pen, FRAME_SIZE / 2);
-					showScreenMessage("PRESS \'R\' TO RESTART", pen,
-							FRAME_SIZE / 2 + (FRAME_SIZE / 10));
-				} else
-				{
-					showScreenMessage("YOU LOSE", pen, FRAME_SIZE / 2);
-					showScreenMessage("PRESS \'R\' TO RESTART", pen,
-							FRAME_SIZE / 2 + (FRAME_SIZE / 10));
-				}
-			}
-
-			// The actual updating of the game.
-			if (runGame && !endGame)
-			{
-				checkForEnemyHits();
-				updateGame();
-				drawGame(pen);
-				searchForWinner();
-			}
-
-			// Clear the graphics object.
-			pen.dispose();
-
-			// Show me what you got! I want to see what you got!
-			strategy.show();
+			renderer.setSprites(new SpriteCache());
+		}
 
-			// Wait for SLEEP_TIME between frames.
-			sleep();
+		if (useBatching)
+		{
+			renderer.setBatcher(new DrawBatcher());
 		}
-	}
 
-	/**
-	 * updateGame() modifies all of the game data based on the current state of
-	 * the game.
-	 */
-	private void updateGame()
-	{
-		// Only run these if the game is actually running.
-		if (runGame)
+		if (useDirtyRects)
 		{
-			moveEnemies();
-			playerAction();
-			player.move();
+			renderer.setDamage(new DamageRegion(FRAME_SIZE, FRAME_SIZE, 2));
 		}
 
-		// This ensures that the player does not leave the game area.
-		if (checkBoundaries(player.getX(), player.getY()))
+		if (statsFile != null)
 		{
-			player.setX(player.getX() - player.getXVel());
+			keyboard.showStats = true;
 		}
 
-		// This checks if any of the shots have left the frame, if so
-		// it removes them. Otherwise, it moves them.
-		for (int i = 0; i < shots.length; i++)
+		String captureDirectory = System.getProperty("invaders.capture");
+		if (captureDirectory != null)
 		{
-			if (checkBoundaries(shots[i].getX(), shots[i].getY()))
+			try
 			{
-				shots = removeObject(i, shots);
-			} else
+				capture = new FrameCapture(game, Paths.get(captureDirectory),
+						Integer.getInteger("invaders.capture.threads", 2),
+						CAPTURE_BUFFERED, useSprites);
+				Runtime.getRuntime().addShutdownHook(
+						new Thread(capture::close));
+			} catch (IOException e)
 			{
-				shots[i].move();
+				System.err.println("Can't capture frames: " + e.getMessage());
 			}
 		}
-	}
 
-	/**
-	 * This modifies the game state based on what the keyboard object says the
-	 * user has entered.
-	 */
-	private void playerAction()
-	{
-		if (keyboard.left)
-		{
-			player.setXVel(-PLAYER_SPEED);
-		} else if (keyboard.right)
+		// Make sure a recording is complete when the window is closed.
+		if (input instanceof InputRecorder)
 		{
-			player.setXVel(PLAYER_SPEED);
-		} else if (keyboard.fire)
-		{
-			shootIfAble();
-			// Since we can only get one keypress at a time
-			// the player's speed has to be zeroed here.
-			player.setXVel(0);
-		} else
-		{
-			player.setXVel(0);
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(((InputRecorder) input)::close));
 		}
-	}
 
-	/**
-	 * This method fills the enemy array with enemies at a position off screen.
-	 * They move left until they hit the edge, then enter the game screen and
-	 * continue their behavior.
-	 * 
-	 * @return Returns a new gameObject array with enemies.
-	 */
-	private GameObject[] fillEnemyArray()
-	{
-		SpaceShip[] tempEnemies = new SpaceShip[TOTAL_ENEMIES];
-		for (int i = 0; i < TOTAL_ENEMIES; i++)
+		if (useRenderThread)
 		{
-			tempEnemies[i] = new SpaceShip(SHIP_SIZE * 4, -SHIP_SIZE, SHIP_SIZE,
-					ENEMY_COLOR);
-			tempEnemies[i].setXVel(-ENEMY_SPEED);
-
-			// If it is the first enemy in the array, allow it to move and
-			// be visible. This is done for the recursive check of on the
-			// next ship. This allows every ship to have the same distance
-			// from one another, yet still independently move.
-			if (i == 0)
-			{
-				((SpaceShip) tempEnemies[i]).setIsMoving(true);
-				((SpaceShip) tempEnemies[i]).setIsVisible(true);
-			}
+			renderThread = new Thread(this::renderLoop, "render");
+			renderThread.setDaemon(true);
 		}
-		return tempEnemies;
+
+		// We're done, the gameLoop can run safely.
+		initComplete = true;
 	}
 
 	/**
-	 * This method goes through the entire array and moves each enemy. It also
-	 * does the recursive check for each enemy in the game, ensuring that they
-	 * all start in the same place off screen, but start at different times.
+	 * gameLoop() loops through all of the updating and drawing of the game.
+	 * The game is simulated in fixed ticks of SLEEP_TIME, no matter how long
+	 * drawing takes: the time that has passed is added to an accumulator, and
+	 * a tick is run for every SLEEP_TIME in it. A frame is drawn whenever at
+	 * least one tick has run, so on a slow machine frames are skipped rather
+	 * than the game slowing down. While the QualityController is skipping
+	 * frames, only every other one of those frames is drawn.
+	 * 
+	 * Drawing a frame means publishing a snapshot to the render thread, or
+	 * drawing it right away if there is no render thread.
 	 * 
+	 * While the stats are on, each part of the frame is timed; the timed
+	 * version of the loop body is kept apart so the stats cost nothing when
+	 * they are off.
 	 */
-	private void moveEnemies()
+	public void gameLoop()
 	{
-		for (int i = 0; i < enemies.length; i++)
+		long previous = System.nanoTime(), accumulator = TICK_NANOS;
+
+		if (renderThread != null)
 		{
+			renderThread.start();
+		}
 
-			// If it isn't the first ship, which is already moving.
-			if (i > 0)
+		// If everything is ready.
+		while (initComplete)
+		{
+			if (keyboard.showStats != (stats != null))
 			{
-				// Then if the ship before this is at least one ship's
-				// length away from the edge of the screen, then start
-				// the current ship moving.
-				if (enemies[i - 1].getX() < SHIP_SIZE)
-				{
-					((SpaceShip) enemies[i]).setIsMoving(true);
-					((SpaceShip) enemies[i]).setIsVisible(true);
-				}
+				toggleStats();
 			}
 
-			// This does the checks on where to make the enemies
-			// start traveling downwards.
-			if (enemies[i].getX() > FRAME_SIZE - SHIP_SIZE
-					|| enemies[i].getX() < SHIP_SIZE)
-			{
-				enemies[i].setYVel(ENEMY_SPEED);
+			long now = System.nanoTime();
+			accumulator += now - previous;
+			previous = now;
 
-				enemies[i].setXVel(0);
+			// After a long stall, drop the time we can't make up instead
+			// of running a burst of ticks.
+			if (accumulator > TICK_NANOS * MAX_CATCH_UP_TICKS)
+			{
+				accumulator = TICK_NANOS * MAX_CATCH_UP_TICKS;
 			}
 
-			// This does the check to see if the ship should start
-			// traveling left or right.
-			if (enemies[i].getY() >= ((((SpaceShip) enemies[i]).rowCounter
-					* SHIP_SIZE * 2) + SHIP_SIZE * 2))
+			boolean ticked = false;
+			while (accumulator >= TICK_NANOS)
 			{
+				// Key events up to the end of this tick's slice of time
+				// belong to it; later ones wait for the next tick.
+				keyboard.setTickTime(now - accumulator + TICK_NANOS);
 
-				// If it is an odd row, then move left.
-				if (((SpaceShip) enemies[i]).rowCounter % 2 == 1)
+				if (stats == null)
 				{
-					enemies[i].setYVel(0);
-					enemies[i].setXVel(-ENEMY_SPEED);
+					game.tick();
+				} else
+				{
+					long tickStart = System.nanoTime();
+					game.tick();
+					stats.record(FrameStats.TICK,
+							System.nanoTime() - tickStart);
 				}
-
-				// If it is an even row, then move right.
-				else if (((SpaceShip) enemies[i]).rowCounter % 2 == 0)
+				if (capture != null)
 				{
-					enemies[i].setYVel(0);
-					enemies[i].setXVel(ENEMY_SPEED);
+					capture.offer(game);
 				}
+				accumulator -= TICK_NANOS;
+				ticked = true;
+			}
 
-				// Since it has completed a row, increment the rowCounter.
-				((SpaceShip) enemies[i]).rowCounter++;
+			boolean drawn = ticked
+					&& (quality == null || quality.shouldDraw());
+			if (drawn)
+			{
+				exchanger.back().capture(game);
+				exchanger.publish();
+				if (renderThread != null)
+				{
+					LockSupport.unpark(renderThread);
+				} else
+				{
+					render(exchanger.take());
+				}
 			}
 
-			// Finally move all the enemies based on their
-			// new velocities.
-			enemies[i].move();
+			// Wait until the next tick is due.
+			if (stats == null)
+			{
+				pacer.waitUntil(previous + (TICK_NANOS - accumulator));
+			} else
+			{
+				long sleepStart = System.nanoTime();
+				pacer.waitUntil(previous + (TICK_NANOS - accumulator));
+				long frameEnd = System.nanoTime();
+				stats.record(FrameStats.SLEEP, frameEnd - sleepStart);
+				stats.record(FrameStats.FRAME, frameEnd - now);
+				if (drawn && renderThread == null)
+				{
+					stats.frameDone(frameEnd);
+				}
+			}
 		}
-
 	}
 
 	/**
-	 * This method checks each frame to see if any of the win/loss conditions
-	 * have been met.
+	 * Picks the input source from the invaders.replay and invaders.record
+	 * properties. If the file can't be opened the player is used instead.
 	 * 
+	 * @param player
+	 *            Who plays the game: the keyboard of the window or the
+	 *            autopilot.
+	 * @param config
+	 *            The settings to record with the input.
+	 * @return Where the game's input comes from.
 	 */
-	private void searchForWinner()
+	private static InputSource openInput(InputSource player,
+			GameConfig config)
 	{
-		// Loop through all of the enemies.
-		for (int i = 0; i < enemies.length; i++)
+		String replay = System.getProperty("invaders.replay"),
+				record = System.getProperty("invaders.record");
+		try
 		{
-			// If any of the enemies have reached the bottom of the screen.
-			if (enemies[i].getY() >= GAME_OVER_TRIGGER_YPOS)
+			if (replay != null)
 			{
-				// Then modify the game state.
-				runGame = playerWon = false;
-				endGame = true;
-
-				// And clear out our objects.
-				enemies = clearObjectArray();
-				shots = clearObjectArray();
-				player = new SpaceShip();
-
+				return new InputReplay(Paths.get(replay));
+			} else if (record != null)
+			{
+				return new InputRecorder(player, Paths.get(record), config);
 			}
-		}
-
-		// If at any time the number of kills = the total number of enemies.
-		if (killCounter == TOTAL_ENEMIES)
+		} catch (IOException e)
 		{
-			// Then modify the game state.
-			runGame = false;
-			endGame = playerWon = true;
-
-			// And clear out the objects.
-			enemies = clearObjectArray();
-			shots = clearObjectArray();
-			player = new SpaceShip();
+			System.err.println("Can't open input file: " + e.getMessage());
 		}
+		return player;
 	}
 
 	/**
-	 * drawGame() is responsible for passing the graphics object to all the
-	 * necessary drawing methods, as well as drawing various UI elements.
-	 * 
-	 * @param pen
-	 *            The graphics object to which is drawn
-	 */
-	private void drawGame(Graphics pen)
-	{
-
-		String killCounterString = killCounter + "/" + TOTAL_ENEMIES;
-		pen.setColor(Color.white);
-		pen.setFont(gameFont);
-
-		// Draws the kill counter in the top right.
-		int labelWidth = pen.getFontMetrics().stringWidth(killCounterString);
-		int labelHeight = pen.getFontMetrics().getAscent();
-		pen.drawString(killCounterString, FRAME_SIZE - labelWidth, labelHeight);
-
-		// Draw the game over line
-		pen.drawLine(0, GAME_OVER_TRIGGER_YPOS, FRAME_SIZE,
-				GAME_OVER_TRIGGER_YPOS);
-
-		// Draw all the objects
-		drawGameObjects(pen, enemies);
-		drawGameObjects(pen, shots);
-		player.drawObject(pen);
-	}
-
-	/**
-	 * This is a general purpose method to loop through all of the game object
-	 * arrays and call each element's draw method.
-	 * 
-	 * @param pen
-	 *            What is being drawn to.
-	 * @param gameObjects
-	 *            The array of passed GameObjects
+	 * Turns the frame stats on or off to match the keyboard, handing them to
+	 * the game and the renderer.
 	 */
-	private void drawGameObjects(Graphics pen, GameObject[] gameObjects)
+	private void toggleStats()
 	{
-		for (int i = 0; i < gameObjects.length; i++)
+		if (stats == null)
 		{
-			gameObjects[i].drawObject(pen);
-		}
-	}
-
-	/**
-	 * shootIfAble() checks whenever the spacebar is pressed, if the ship can
-	 * add another shot to the projectile array. Ability to shoot is determined
-	 * by the time between shots and if the shot is the first shot or not.
-	 * 
-	 */
-	private void shootIfAble()
-	{
-		if (getShotTime() > RATE_OF_FIRE || shots.length == 0)
+			stats = new FrameStats(statsFile);
+		} else
 		{
-			shots = addNewShotToArray(shots);
+			stats.close();
+			stats = null;
 		}
-
+		game.setStats(stats);
+		renderer.setStats(stats);
 	}
 
 	/**
-	 * addNewShotToArray() takes the original array of projectiles, and
-	 * increases its size by 1, then it adds a new shot at the last element in
-	 * the new array. Each element from the old array is copied over to the new
-	 * one.
-	 * 
-	 * @param originalObjects
-	 *            The original array of shots.
-	 * @return The array of shots + one more.
+	 * renderLoop() is run by the render thread. It sleeps until the game loop
+	 * publishes a snapshot, then draws the newest one. Snapshots published
+	 * while a frame is being drawn are skipped, apart from the last.
 	 */
-	private GameObject[] addNewShotToArray(GameObject[] originalObjects)
+	private void renderLoop()
 	{
-		GameObject[] tempObjects = new GameObject[originalObjects.length + 1];
-		for (int i = 0; i < tempObjects.length; i++)
+		while (true)
 		{
-			if (i == originalObjects.length)
-			{
-				tempObjects[i] = createNewShot();
-			} else
+			if (!exchanger.hasFresh())
 			{
-				tempObjects[i] = originalObjects[i];
+				LockSupport.park(this);
+				continue;
 			}
-		}
 
-		return tempObjects;
-	}
+			render(exchanger.take());
 
-	/**
-	 * This method creates and returns shots for addNewShotToArray() it also
-	 * logs the time the shot was created to keep track of time between shots.
-	 * 
-	 * @return Returns a new projectile object.
-	 */
-	private GameObject createNewShot()
-	{
-		Projectile shot = new Projectile(player.getX(), player.getY(),
-				SHOT_SIZE, SHOT_COLOR);
-		shot.setYVel(-PROJECTILE_SPEED);
-		lastShotTime = (int) System.currentTimeMillis();
-
-		return shot;
-	}
-
-	/**
-	 * clearObjectArray() just returns an empty object array.
-	 * 
-	 * @return Returns a new empty array
-	 */
-	private GameObject[] clearObjectArray()
-	{
-		return new GameObject[0];
-	}
-
-	/**
-	 * removeObject() is used whenever an item in an array needs to be deleted.
-	 * It creates an array of size - 1, then copies over every element except
-	 * for the index into the new array.
-	 * 
-	 * @param index
-	 *            The index of the item to be deleted.
-	 * @param originalObjects
-	 *            The array of original objects.
-	 * @return A new array of objects.
-	 */
-	private GameObject[] removeObject(int index, GameObject[] originalObjects)
-	{
-		GameObject[] tempObjects = new GameObject[originalObjects.length - 1];
-
-		int j = 0;
-		for (int i = 0; i < tempObjects.length; i++)
-		{
-			if (i == index)
+			FrameStats frameStats = stats;
+			if (frameStats != null)
 			{
-				j++;
+				frameStats.frameDone(System.nanoTime());
 			}
-			tempObjects[i] = originalObjects[j];
-			j++;
 		}
-		return tempObjects;
 	}
 
 	/**
-	 * Calculates the change in time since the last shot.
+	 * render() draws a snapshot of the game to the back buffer and shows it.
+	 * If the buffers lose their contents along the way, the frame is drawn
+	 * again in full.
 	 * 
-	 * @return The amount of time since the last shot.
-	 */
-	private int getShotTime()
-	{
-		long deltaT = (System.currentTimeMillis() - lastShotTime);
-		return (int) deltaT;
-	}
-
-	/**
-	 * Checks each shot against each enemy to see if there are any
-	 * intersections, if there is, then remove those objects from the screen.
+	 * @param frame
+	 *            The snapshot to draw.
 	 */
-	private void checkForEnemyHits()
+	private void render(FrameSnapshot frame)
 	{
-		GameObject currentShot;
+		FrameStats stats = this.stats;
+		if (quality != null)
+		{
+			renderer.setDetail(quality.drawPulses(), quality.drawThrusters());
+		}
 
-		// All the shots
-		for (int i = 0; i < shots.length; i++)
+		long drawStart = System.nanoTime(), showStart;
+		do
 		{
-			currentShot = shots[i];
-			// All the enemies
-			for (int j = 0; j < enemies.length; j++)
+			do
 			{
-				if (enemies[j].intersects(currentShot.getHitbox()))
+				// Creates a new graphics2d object using the bufferStrategy.
+				// This is the one object a frame allocates: the strategy can
+				// swap in a new back buffer on any show(), so an old one
+				// can't be kept.
+				Graphics2D pen = (Graphics2D) strategy.getDrawGraphics();
+
+				// Draw the whole frame.
+				renderer.drawFrame(pen, frame);
+
+				// Clear the graphics object.
+				pen.dispose();
+
+				// If the buffer was lost and brought back while we drew,
+				// nothing that was in it before is left, so draw it again in
+				// full.
+				if (!strategy.contentsRestored())
 				{
-					// Enemy kill confirmed.
-					killCounter++;
-					// Remove the enemy object at the current index.
-					enemies = removeObject(j, enemies);
-					// Remove the projectle object at the current index.
-					shots = removeObject(i, shots);
+					break;
 				}
-			}
-		}
-	}
-
-	/**
-	 * This method returns true if the passed x,y position exists outside of the
-	 * frame. It is used to delete shots as they leave the frame.
-	 * 
-	 * @param xPos
-	 *            The x position to check
-	 * @param yPos
-	 *            The y position to check
-	 * @return Whether or not the point is outside.
-	 */
-	private boolean checkBoundaries(int xPos, int yPos)
-	{
-		boolean isOutside = false;
-		if ((xPos >= FRAME_SIZE || xPos <= 0)
-				|| (yPos >= FRAME_SIZE || yPos <= 0))
-		{
-			isOutside = true;
-		}
-		return isOutside;
-	}
+				renderer.invalidate();
+			} while (true);
 
-	/**
-	 * This method is used for displaying messages to the screen (for starting,
-	 * and restarting).
-	 * 
-	 * @param screenMessage
-	 *            Message to be shown
-	 * @param pen
-	 *            Graphics object to which is drawn
-	 * @param yPos
-	 *            The y postion where the message is placed.
-	 */
-	private void showScreenMessage(String screenMessage, Graphics pen, int yPos)
-	{
-		pen.setColor(Color.white);
-		pen.setFont(gameFont);
-		int labelWidth = pen.getFontMetrics().stringWidth(screenMessage);
-		int labelHeight = pen.getFontMetrics().getAscent();
+			// Show me what you got! I want to see what you got!
+			showStart = stats == null ? 0 : System.nanoTime();
+			strategy.show();
 
-		pen.drawString(screenMessage, (FRAME_SIZE / 2) - (labelWidth / 2),
-				yPos + (labelHeight / 2));
-	}
+			// If the buffer was lost before it could be shown, start over.
+			if (!strategy.contentsLost())
+			{
+				break;
+			}
+			renderer.invalidate();
+		} while (true);
 
-	/**
-	 * This sleeps the loop for SLEEP_TIME to give the illusion of motion.
-	 * 
-	 */
-	private void sleep()
-	{
-		try
+		long drawEnd = System.nanoTime();
+		if (quality != null)
 		{
-			Thread.sleep(SLEEP_TIME);
-		} catch (InterruptedException e)
+			quality.frameDrawn(drawEnd - drawStart);
+		}
+		if (stats != null)
 		{
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			stats.record(FrameStats.DRAW, showStart - drawStart);
+			stats.record(FrameStats.SHOW, drawEnd - showStart);
 		}
 	}
 }
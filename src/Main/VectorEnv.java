@@ -0,0 +1,243 @@
+package Main;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import GameObjects.EntityStore;
+import GameObjects.SpaceShip;
+
+/**
+ * VectorEnv runs many independent games side by side, without windows, for
+ * agents that learn to play. One call to step() applies an action to every
+ * game, runs one tick of each, and writes what each game looks like into
+ * arrays that are made once up front and reused by every step.
+ * 
+ * An action is a mix of InputSource.LEFT, RIGHT and FIRE, or 0 for none. The
+ * start key is always held, so every game starts on its first step and
+ * starts over on the step after it ends.
+ * 
+ * The games are split into chunks that are stepped in parallel on a
+ * fork/join pool, the same way GameSimulation moves a huge wave. Each game
+ * only touches its own state, so the results don't depend on how they are
+ * split.
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class VectorEnv
+{
+	// The most games one parallel task steps.
+	private static final int CHUNK = 16;
+
+	// The games, and the action each one gets on the next step.
+	private final GameSimulation[] games;
+	private final Action[] inputs;
+
+	// The pool the games are stepped on, or null to step them on the calling
+	// thread.
+	private final ForkJoinPool pool;
+
+	// The number of cells across the occupancy grid, and the number of
+	// pixels across each cell.
+	private final int gridSize, cellSize;
+
+	// The observations, written by each step. Game i's occupancy grid is
+	// gridSize * gridSize entries starting at i * gridSize * gridSize, row by
+	// row, and is 1 for a cell holding the center of an enemy and 0
+	// otherwise.
+	public final byte[] occupancy;
+
+	// Each game's player x position and kill count.
+	public final int[] playerX, kills;
+
+	// How many enemies each game's last step destroyed.
+	public final int[] reward;
+
+	// Whether each game ended on its last step. The next step starts a new
+	// one.
+	public final boolean[] done;
+
+	/**
+	 * The input of one game: the action it was given for this step, with the
+	 * start key held. It is only used by the thread stepping that game.
+	 */
+	private static class Action implements InputSource
+	{
+		int keys;
+
+		@Override
+		public int poll()
+		{
+			return keys | GO;
+		}
+	}
+
+	/**
+	 * Creates the games, each waiting on its start screen.
+	 * 
+	 * @param count
+	 *            How many games to run.
+	 * @param config
+	 *            The size and speed of every game.
+	 * @param gridSize
+	 *            How many cells across the occupancy grid is.
+	 * @param pool
+	 *            The pool to step the games on, or null to step them on the
+	 *            thread calling step().
+	 */
+	public VectorEnv(int count, GameConfig config, int gridSize,
+			ForkJoinPool pool)
+	{
+		if (count < 1 || gridSize < 1)
+		{
+			throw new IllegalArgumentException("count and gridSize must be"
+					+ " at least 1");
+		}
+
+		games = new GameSimulation[count];
+		inputs = new Action[count];
+		for (int i = 0; i < count; i++)
+		{
+			inputs[i] = new Action();
+			games[i] = new GameSimulation(inputs[i], config);
+		}
+		this.pool = pool;
+		this.gridSize = gridSize;
+		cellSize = (config.frameSize + gridSize - 1) / gridSize;
+
+		occupancy = new byte[count * gridSize * gridSize];
+		playerX = new int[count];
+		kills = new int[count];
+		reward = new int[count];
+		done = new boolean[count];
+	}
+
+	/**
+	 * The number of games.
+	 * 
+	 * @return How many games are run.
+	 */
+	public int size()
+	{
+		return games.length;
+	}
+
+	/**
+	 * Applies an action to every game, runs one tick of each, and fills in
+	 * the observations.
+	 * 
+	 * @param actions
+	 *            The action for each game, a mix of InputSource.LEFT, RIGHT
+	 *            and FIRE.
+	 */
+	public void step(int[] actions)
+	{
+		if (actions.length != games.length)
+		{
+			throw new IllegalArgumentException("Expected " + games.length
+					+ " actions, not " + actions.length);
+		}
+
+		if (pool != null && games.length > CHUNK)
+		{
+			pool.invoke(new StepTask(actions, 0, games.length));
+		} else
+		{
+			step(actions, 0, games.length);
+		}
+	}
+
+	/**
+	 * Steps a range of games.
+	 * 
+	 * @param actions
+	 *            The action for each game.
+	 * @param from
+	 *            The first game to step.
+	 * @param to
+	 *            One past the last game to step.
+	 */
+	private void step(int[] actions, int from, int to)
+	{
+		int cells = gridSize * gridSize;
+		for (int i = from; i < to; i++)
+		{
+			GameSimulation game = games[i];
+			int killsBefore = game.getKillCounter();
+			boolean wasOver = game.isOver();
+
+			inputs[i].keys = actions[i]
+					& (InputSource.LEFT | InputSource.RIGHT | InputSource.FIRE);
+			game.tick();
+
+			int killsNow = game.getKillCounter();
+			// A restart sets the kill counter back to 0.
+			reward[i] = killsNow >= killsBefore ? killsNow - killsBefore : 0;
+			kills[i] = killsNow;
+			playerX[i] = game.getPlayer().getX();
+			done[i] = game.isOver() && !wasOver;
+			observeEnemies(game.getEnemies(), i * cells);
+		}
+	}
+
+	/**
+	 * Fills in one game's occupancy grid.
+	 * 
+	 * @param enemies
+	 *            The game's enemies.
+	 * @param offset
+	 *            Where the game's grid starts in occupancy.
+	 */
+	private void observeEnemies(EntityStore<SpaceShip> enemies, int offset)
+	{
+		int cells = gridSize * gridSize;
+		for (int c = 0; c < cells; c++)
+		{
+			occupancy[offset + c] = 0;
+		}
+
+		int[] x = enemies.position.x, y = enemies.position.y;
+		for (int e = 0; e < enemies.size(); e++)
+		{
+			// Enemies off the screen, still entering, aren't on the grid.
+			if (x[e] >= 0 && y[e] >= 0)
+			{
+				int column = Math.min(x[e] / cellSize, gridSize - 1);
+				int row = Math.min(y[e] / cellSize, gridSize - 1);
+				occupancy[offset + row * gridSize + column] = 1;
+			}
+		}
+	}
+
+	/**
+	 * Steps a range of games, splitting it in half until the pieces are no
+	 * bigger than CHUNK.
+	 */
+	@SuppressWarnings("serial")
+	private class StepTask extends RecursiveAction
+	{
+		private final int[] actions;
+		private final int from, to;
+
+		StepTask(int[] actions, int from, int to)
+		{
+			this.actions = actions;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= CHUNK)
+			{
+				step(actions, from, to);
+			} else
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new StepTask(actions, from, mid),
+						new StepTask(actions, mid, to));
+			}
+		}
+	}
+}
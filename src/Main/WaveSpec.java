@@ -0,0 +1,248 @@
+package Main;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+/**
+ * WaveSpec describes the waves of enemies in a game: how many enemies each
+ * wave has, how many ticks apart they enter, which path they follow and what
+ * color they are. The waves come one after another, and nothing is made for
+ * an enemy until it enters, so a wave costs nothing while it waits and the
+ * last wave can go on forever.
+ * 
+ * A wave spec file has one wave per line, with # starting a comment line:
+ * 
+ * count cadence path color
+ * 
+ * where count is a number of enemies or "endless" (only for the last wave),
+ * cadence is a number of ticks or "beat" for the original spacing of a ship's
+ * length, path is "snake" for the original path or "mirror" for the same path
+ * flipped to start on the right, and color is a java.awt.Color name such as
+ * "red" or a hex color such as "#00ff00".
+ * 
+ * @author Mason Dumaine
+ *
+ */
+public class WaveSpec
+{
+	// Stands for an endless wave in count, and for the original spacing in
+	// cadence.
+	static final int ENDLESS = -1, BEAT = 0;
+
+	// For each wave: the number of enemies, the ticks between them, whether
+	// they follow the mirrored path and their color.
+	final int[] count, cadence;
+	final boolean[] mirrored;
+	final Color[] color;
+
+	/**
+	 * Creates a wave spec from its waves.
+	 */
+	private WaveSpec(int[] count, int[] cadence, boolean[] mirrored,
+			Color[] color)
+	{
+		this.count = count;
+		this.cadence = cadence;
+		this.mirrored = mirrored;
+		this.color = color;
+	}
+
+	/**
+	 * Creates the original single wave of red enemies on the snake path.
+	 * 
+	 * @param enemies
+	 *            The size of the wave.
+	 * @return The wave spec.
+	 */
+	public static WaveSpec single(int enemies)
+	{
+		return new WaveSpec(new int[] { enemies }, new int[] { BEAT },
+				new boolean[] { false }, new Color[] { Color.red });
+	}
+
+	/**
+	 * Reads a wave spec file.
+	 * 
+	 * @param file
+	 *            The name of the file.
+	 * @return The wave spec.
+	 * @throws IllegalArgumentException
+	 *             If the file can't be read or a line of it is bad.
+	 */
+	public static WaveSpec load(String file)
+	{
+		ArrayList<String[]> lines = new ArrayList<>();
+		ArrayList<Integer> numbers = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(new FileReader(file)))
+		{
+			String line;
+			int number = 0;
+			while ((line = in.readLine()) != null)
+			{
+				number++;
+				line = line.trim();
+				if (!line.isEmpty() && !line.startsWith("#"))
+				{
+					lines.add(line.split("\\s+"));
+					numbers.add(number);
+				}
+			}
+		} catch (IOException e)
+		{
+			throw new IllegalArgumentException("Can't read waves " + file
+					+ ": " + e.getMessage());
+		}
+		if (lines.isEmpty())
+		{
+			throw new IllegalArgumentException("No waves in " + file);
+		}
+
+		int waves = lines.size();
+		int[] count = new int[waves], cadence = new int[waves];
+		boolean[] mirrored = new boolean[waves];
+		Color[] color = new Color[waves];
+		for (int i = 0; i < waves; i++)
+		{
+			String[] fields = lines.get(i);
+			String where = file + " line " + numbers.get(i) + ": ";
+			if (fields.length != 4)
+			{
+				throw new IllegalArgumentException(where
+						+ "expected count cadence path color");
+			}
+
+			if (fields[0].equals("endless"))
+			{
+				if (i != waves - 1)
+				{
+					throw new IllegalArgumentException(where
+							+ "only the last wave can be endless");
+				}
+				count[i] = ENDLESS;
+			} else
+			{
+				count[i] = getPositive(where + "count", fields[0]);
+			}
+
+			cadence[i] = fields[1].equals("beat") ? BEAT
+					: getPositive(where + "cadence", fields[1]);
+
+			if (fields[2].equals("mirror"))
+			{
+				mirrored[i] = true;
+			} else if (!fields[2].equals("snake"))
+			{
+				throw new IllegalArgumentException(where + "path must be"
+						+ " snake or mirror, not " + fields[2]);
+			}
+
+			color[i] = getColor(where, fields[3]);
+		}
+		return new WaveSpec(count, cadence, mirrored, color);
+	}
+
+	/**
+	 * The number of waves.
+	 * 
+	 * @return How many waves there are.
+	 */
+	public int size()
+	{
+		return count.length;
+	}
+
+	/**
+	 * The number of enemies in all the waves together.
+	 * 
+	 * @return The total, or ENDLESS if the last wave never ends.
+	 */
+	public int getTotal()
+	{
+		long total = 0;
+		for (int enemies : count)
+		{
+			if (enemies == ENDLESS)
+			{
+				return ENDLESS;
+			}
+			total += enemies;
+		}
+		return (int) Math.min(total, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The fewest ticks between two enemies entering, which decides how many
+	 * can be in play at once.
+	 * 
+	 * @param beat
+	 *            The ticks between enemies for a cadence of "beat".
+	 * @return The shortest cadence of any wave.
+	 */
+	public int getShortestCadence(int beat)
+	{
+		int shortest = Integer.MAX_VALUE;
+		for (int ticks : cadence)
+		{
+			shortest = Math.min(shortest, ticks == BEAT ? beat : ticks);
+		}
+		return shortest;
+	}
+
+	/**
+	 * Reads a whole number that has to be at least 1.
+	 */
+	private static int getPositive(String name, String value)
+	{
+		try
+		{
+			int number = Integer.parseInt(value);
+			if (number >= 1)
+			{
+				return number;
+			}
+		} catch (NumberFormatException e)
+		{
+			// Reported below, the same as a number out of range.
+		}
+		throw new IllegalArgumentException(name
+				+ " must be a whole number of at least 1, not " + value);
+	}
+
+	/**
+	 * Reads a color, either a hex value or the name of one of the colors in
+	 * java.awt.Color.
+	 */
+	private static Color getColor(String where, String value)
+	{
+		if (value.startsWith("#"))
+		{
+			try
+			{
+				return Color.decode(value);
+			} catch (NumberFormatException e)
+			{
+				throw new IllegalArgumentException(where + "bad color "
+						+ value);
+			}
+		}
+
+		try
+		{
+			Field field = Color.class.getField(value);
+			if (Modifier.isStatic(field.getModifiers())
+					&& field.getType() == Color.class)
+			{
+				return (Color) field.get(null);
+			}
+		} catch (NoSuchFieldException | IllegalAccessException e)
+		{
+			// Reported below, the same as a field that isn't a color.
+		}
+		throw new IllegalArgumentException(where + "unknown color " + value);
+	}
+}